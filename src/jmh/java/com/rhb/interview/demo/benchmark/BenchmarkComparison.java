@@ -0,0 +1,82 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints two jmh json result files side by side, score and allocated bytes per operation of every benchmark
+ * with the change from the first file to the second. Typically the results of two commits:
+ * <pre>
+ * java -cp target/test-classes:... com.rhb.interview.demo.benchmark.BenchmarkComparison before.json after.json
+ * </pre>
+ */
+public class BenchmarkComparison {
+    private static final String ALLOCATION = "·gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BenchmarkComparison <before.json> <after.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> before = read(new File(args[0]));
+        Map<String, JsonNode> after = read(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %8s %12s %12s %8s%n",
+                "benchmark", "before", "after", "change", "B/op before", "B/op after", "change");
+        for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+            JsonNode was = before.get(entry.getKey());
+            JsonNode is = entry.getValue();
+            double score = is.path("primaryMetric").path("score").asDouble();
+            double allocated = allocated(is);
+            if (was == null) {
+                System.out.printf("%-70s %14s %14.3f %8s %12s %12.0f %8s%n", entry.getKey(), "-", score, "new", "-", allocated, "");
+                continue;
+            }
+            double previousScore = was.path("primaryMetric").path("score").asDouble();
+            double previousAllocated = allocated(was);
+            System.out.printf("%-70s %14.3f %14.3f %8s %12.0f %12.0f %8s%n", entry.getKey(),
+                    previousScore, score, change(previousScore, score),
+                    previousAllocated, allocated, change(previousAllocated, allocated));
+        }
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name)) {
+                System.out.printf("%-70s %14s%n", name, "removed");
+            }
+        }
+    }
+
+    //benchmark name plus its params, the unit tells throughput from average time apart
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder name = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.rhb.interview.demo.benchmark.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            name.append(" (").append(result.path("primaryMetric").path("scoreUnit").asText()).append(')');
+            results.put(name.toString(), result);
+        }
+        return results;
+    }
+
+    private static double allocated(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOCATION);
+        return metric.isMissingNode() ? Double.NaN : metric.path("score").asDouble();
+    }
+
+    private static String change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return "";
+        }
+        return String.format("%+.1f%%", (after - before) / before * 100);
+    }
+}
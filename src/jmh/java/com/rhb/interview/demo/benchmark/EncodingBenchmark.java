@@ -0,0 +1,123 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.controller.MovieProtobufHttpMessageConverter;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MoviesResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A MoviesResponse of size movies written by the message converter of each encoding the list endpoint negotiates,
+ * into a stream that only counts, so encoding alone is measured (and allocated).
+ * The bytes on the wire, as is and gzip compressed, are printed once per trial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    private String encoding;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int size;
+
+    private HttpMessageConverter<Object> converter;
+
+    private MoviesResponse response;
+
+    private final CountingOutputStream body = new CountingOutputStream();
+
+    @Setup
+    public void setUp() throws IOException {
+        converter = converter(encoding);
+        List<Movie> movies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            movies.add(new Movie((long) i + 1, "movie title " + i, "category " + i % 20, (byte) (i % 10 + 1)));
+        }
+        response = new MoviesResponse();
+        response.setMovies(movies);
+        response.setNextCursor("aWQ6MTAwOg");
+
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        converter.write(response, null, message(encoded));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            encoded.writeTo(gzip);
+        }
+        System.out.printf("%n  %s of %d movies: %d bytes, %d gzip%n", encoding, size, encoded.size(), compressed.size());
+    }
+
+    @Benchmark
+    public long moviesResponse() throws IOException {
+        body.count = 0;
+        converter.write(response, null, message(body));
+        return body.count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpMessageConverter<Object> converter(String encoding) {
+        //built like EncodingConfiguration builds them, from the defaults spring boot gives its ObjectMapper
+        switch (encoding) {
+            case "json":
+                return new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+            case "cbor":
+                return new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor().build());
+            case "smile":
+                return new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile().build());
+            case "protobuf":
+                return (HttpMessageConverter<Object>) (AbstractHttpMessageConverter<?>) new MovieProtobufHttpMessageConverter();
+            default:
+                throw new IllegalArgumentException(encoding);
+        }
+    }
+
+    //a fresh message per write, as every response has its own headers
+    private static HttpOutputMessage message(OutputStream body) {
+        HttpHeaders headers = new HttpHeaders();
+        return new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.DemoApplication;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.service.impl.MovieExporter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovieExporter over a catalog of ROWS movies from an embedded h2 into a counting sink, the score is rows per second.
+ * The fork runs with a small heap to show an export does not grow with the catalog, after every iteration the
+ * peak heap used above the idle application and the bytes written per row are printed.
+ * The database is a file under target/ so the catalog is not on the heap being measured, LAZY_QUERY_EXECUTION has h2
+ * stream the result like the mysql driver does with useCursorFetch, otherwise h2 itself would hold the whole result
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@OperationsPerInvocation(ExportBenchmark.ROWS)
+public class ExportBenchmark {
+    static final int ROWS = 1_000_000;
+    private static final int CATEGORIES = 20;
+    private static final int SEED_BATCH = 10_000;
+
+    @Param({"CSV", "NDJSON"})
+    private CatalogFormat format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ConfigurableApplicationContext context;
+
+    private MovieExporter movieExporter;
+
+    private final CountingOutputStream sink = new CountingOutputStream();
+
+    private long exported;
+
+    private long idleHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:./target/benchmark/export;LAZY_QUERY_EXECUTION=1",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--logging.level.root=warn");
+        movieExporter = context.getBean(MovieExporter.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{i, "exported movie title " + i, "category " + i % CATEGORIES, i % 10 + 1});
+            if (batch.size() == SEED_BATCH) {
+                jdbcTemplate.batchUpdate("insert into movies_entity (id, title, category, rating, version) values (?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        System.gc();
+        idleHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            idleHeap += pool.getUsage().getUsed();
+            pool.resetPeakUsage();
+        }
+        sink.count = 0;
+        exported = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.printf("%n  peak heap above idle %d MB, %d bytes per row%n",
+                (peak - idleHeap) / (1024 * 1024), exported == 0 ? 0 : sink.count / exported);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        long rows = movieExporter.export(sink, format, 0, gzip);
+        exported += rows;
+        return rows;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    //the response stand in, only counts what it is given
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
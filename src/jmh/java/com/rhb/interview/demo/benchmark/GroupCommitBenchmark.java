@@ -0,0 +1,71 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.DemoApplication;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.service.MoviesService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * createMovie from many threads at once, each commit on its own against group commit.
+ * file storage is an h2 database under target/ that writes every commit through, mem has no commit cost to share
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class GroupCommitBenchmark {
+    private static final int CATEGORIES = 20;
+
+    @Param({"false", "true"})
+    private boolean groupCommit;
+
+    @Param({"mem", "file"})
+    private String storage;
+
+    private ConfigurableApplicationContext context;
+
+    private MoviesService moviesService;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = "mem".equals(storage)
+                ? "jdbc:h2:mem:groupcommit"
+                : "jdbc:h2:file:./target/benchmark/groupcommit;WRITE_DELAY=0";
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.datasource.hikari.maximum-pool-size=32",
+                        "--movies.group-commit.enabled=" + groupCommit,
+                        "--logging.level.root=warn");
+        moviesService = context.getBean(MoviesService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> createMovie() {
+        int i = next.incrementAndGet();
+        MovieRequest request = new MovieRequest();
+        request.setTitle("benchmark title " + i);
+        request.setCategory("category " + i % CATEGORIES);
+        request.setRating("3.5");
+        return moviesService.createMovie(request, new BeanPropertyBindingResult(request, "movieRequest"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.repository.entity.LockFreePooledLoOptimizer;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.NoopOptimizer;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids from many threads at once out of a hibernate_sequence table, the way hibernate keeps the sequence on mysql:
+ * every read locks the row, moves it on and commits in a transaction of its own.
+ * none reads the table for every id as GenerationType.AUTO did, pooled-lo is hibernate's synchronized
+ * PooledLoOptimizer and lock-free the LockFreePooledLoOptimizer MovieIdGenerator uses, both a block of
+ * MoviesEntity.ID_BLOCK_SIZE ids per read. The table is in an h2 file under target/ that writes every commit through
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"none", "pooled-lo", "lock-free"})
+    private String optimizer;
+
+    private HikariDataSource dataSource;
+
+    private Optimizer ids;
+
+    private AccessCallback sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:file:./target/benchmark/idgenerator;WRITE_DELAY=0");
+        config.setMaximumPoolSize(32);
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists hibernate_sequence");
+            statement.execute("create table hibernate_sequence (next_val bigint)");
+            statement.execute("insert into hibernate_sequence values (1)");
+        }
+        switch (optimizer) {
+            case "none":
+                ids = new NoopOptimizer(Long.class, 1);
+                break;
+            case "pooled-lo":
+                ids = new PooledLoOptimizer(Long.class, MoviesEntity.ID_BLOCK_SIZE);
+                break;
+            default:
+                ids = new LockFreePooledLoOptimizer(Long.class, MoviesEntity.ID_BLOCK_SIZE);
+        }
+        sequence = new TableSequence(ids.getIncrementSize());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Serializable nextId() {
+        return ids.generate(sequence);
+    }
+
+    //the statements of hibernate's TableStructure
+    private class TableSequence implements AccessCallback {
+        private final int increment;
+
+        TableSequence(int increment) {
+            this.increment = increment;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                long value;
+                try (PreparedStatement select = connection.prepareStatement("select next_val from hibernate_sequence for update");
+                     ResultSet resultSet = select.executeQuery()) {
+                    resultSet.next();
+                    value = resultSet.getLong(1);
+                }
+                try (PreparedStatement update = connection.prepareStatement("update hibernate_sequence set next_val = ? where next_val = ?")) {
+                    update.setLong(1, value + increment);
+                    update.setLong(2, value);
+                    update.executeUpdate();
+                }
+                connection.commit();
+                return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(value);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
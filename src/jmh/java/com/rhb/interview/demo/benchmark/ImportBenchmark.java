@@ -0,0 +1,88 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.DemoApplication;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.ImportResponse;
+import com.rhb.interview.demo.service.impl.MovieImporter;
+import com.rhb.interview.demo.service.impl.MovieStatistics;
+import com.rhb.interview.demo.service.impl.MovieTitleIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovieImporter end to end into an embedded h2, the score is rows per second.
+ * The table is emptied after every iteration so each one imports into the same sized table
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OperationsPerInvocation(ImportBenchmark.ROWS)
+public class ImportBenchmark {
+    static final int ROWS = 100_000;
+    private static final int CATEGORIES = 20;
+
+    @Param({"CSV", "NDJSON"})
+    private CatalogFormat format;
+
+    private ConfigurableApplicationContext context;
+
+    private MovieImporter movieImporter;
+
+    private String input;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:import",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--logging.level.root=warn");
+        movieImporter = context.getBean(MovieImporter.class);
+
+        StringBuilder rows = new StringBuilder(ROWS * 64);
+        if (format == CatalogFormat.CSV) {
+            rows.append("title,category,rating\n");
+        }
+        for (int i = 0; i < ROWS; i++) {
+            String title = "imported movie title " + i;
+            String category = "category " + i % CATEGORIES;
+            String rating = (i % 10 + 1) / 2f + "";
+            if (format == CatalogFormat.CSV) {
+                rows.append(title).append(',').append(category).append(',').append(rating).append('\n');
+            } else {
+                rows.append("{\"title\":\"").append(title).append("\",\"category\":\"").append(category)
+                        .append("\",\"rating\":\"").append(rating).append("\"}\n");
+            }
+        }
+        input = rows.toString();
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyTable() {
+        context.getBean(JdbcTemplate.class).execute("truncate table movies_entity");
+        context.getBean(MovieTitleIndex.class).rebuild();
+        context.getBean(MovieStatistics.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ImportResponse importMovies() throws IOException {
+        return movieImporter.importMovies(new StringReader(input), format, row -> {
+            throw new IllegalStateException("Rejected row at line " + row.getLine());
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to dto copies, one per row the service hands out
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private MoviesEntity entity;
+
+    @Setup
+    public void setUp() {
+        entity = new MoviesEntity();
+        entity.setId(42L);
+        entity.setTitle("The Shawshank Redemption");
+        entity.setCategory("drama");
+        entity.setRatingHalfStars((byte) 9);
+        entity.setVersion(3);
+    }
+
+    @Benchmark
+    public Movie movie() {
+        return new Movie(entity);
+    }
+
+    @Benchmark
+    public MovieResponse movieResponse() {
+        return new MovieResponse(entity);
+    }
+}
@@ -0,0 +1,56 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MoviesResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson writing a MoviesResponse of size movies, into a stream that discards the bytes so
+ * only serialization is measured (and allocated)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private ObjectWriter writer;
+
+    private MoviesResponse response;
+
+    private OutputStream discard;
+
+    @Setup
+    public void setUp() {
+        //same defaults spring boot gives its ObjectMapper, the discarding stream stays open between calls
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(MoviesResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        List<Movie> movies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            movies.add(new Movie((long) i + 1, "movie title " + i, "category " + i % 20, (byte) (i % 10 + 1)));
+        }
+        response = new MoviesResponse();
+        response.setMovies(movies);
+        response.setNextCursor("aWQ6MTAwOg");
+        discard = OutputStream.nullOutputStream();
+    }
+
+    @Benchmark
+    public void moviesResponse() throws IOException {
+        writer.writeValue(discard, response);
+    }
+}
@@ -0,0 +1,151 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.DemoApplication;
+import com.rhb.interview.demo.dto.MovieFilter;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MoviesService;
+import com.rhb.interview.demo.service.impl.MovieStatistics;
+import com.rhb.interview.demo.service.impl.MovieTitleIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MoviesServiceImpl end to end against an embedded h2 holding movies rows, without the web layer.
+ * The movie cache is off so getMovie and updateMovie reach the database every time
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+    private static final int CATEGORIES = 20;
+
+    @Param({"10000"})
+    private int movies;
+
+    private ConfigurableApplicationContext context;
+
+    private MoviesService moviesService;
+
+    private MoviesRepository moviesRepository;
+
+    private long[] ids;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //arguments rather than default properties, those would lose to application.properties
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--movies.cache.maximum-size=0",
+                        "--logging.level.root=warn");
+        moviesService = context.getBean(MoviesService.class);
+
+        moviesRepository = context.getBean(MoviesRepository.class);
+        List<MoviesEntity> entities = new ArrayList<>(movies);
+        for (int i = 0; i < movies; i++) {
+            MoviesEntity entity = new MoviesEntity();
+            entity.setTitle("movie title " + i);
+            entity.setCategory("category " + i % CATEGORIES);
+            entity.setRatingHalfStars((byte) (i % 10 + 1));
+            entities.add(entity);
+        }
+        ids = moviesRepository.saveAll(entities).stream().mapToLong(MoviesEntity::getId).toArray();
+        //rows written behind the service, same as the tests do
+        context.getBean(MovieTitleIndex.class).rebuild();
+        context.getBean(MovieStatistics.class).rebuild();
+    }
+
+    /**
+     * a delete needs a row of its own, inserted outside the measured call
+     */
+    @State(Scope.Thread)
+    public static class Victim {
+        private String id;
+
+        @Setup(Level.Invocation)
+        public void insert(ServiceBenchmark benchmark) {
+            MoviesEntity entity = new MoviesEntity();
+            entity.setTitle("to delete");
+            entity.setCategory("category 0");
+            entity.setRatingHalfStars((byte) 1);
+            id = Long.toString(benchmark.moviesRepository.save(entity).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //walks the seeded ids so lookups do not keep hitting the same row
+    private String nextId() {
+        next = (next + 1) % ids.length;
+        return Long.toString(ids[next]);
+    }
+
+    private static MovieRequest request(int i) {
+        MovieRequest request = new MovieRequest();
+        request.setTitle("benchmark title " + i);
+        request.setCategory("category " + i % CATEGORIES);
+        request.setRating("3.5");
+        return request;
+    }
+
+    @Benchmark
+    public ResponseEntity<?> createMovie() {
+        MovieRequest request = request(next++);
+        return moviesService.createMovie(request, new BeanPropertyBindingResult(request, "movieRequest"));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> deleteMovie(Victim victim) {
+        return moviesService.deleteMovie(victim.id, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getMovies() {
+        return moviesService.getMovies(new MovieFilter(null, null, null), null, null, null, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getMoviesFiltered() {
+        return moviesService.getMovies(new MovieFilter("category 7", 2.0f, 4.5f), null, null, "title", null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getMovie() {
+        return moviesService.getMovie(nextId(), null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> updateMovie() {
+        MovieRequest request = request(next);
+        return moviesService.updateMovie(nextId(), null, request, new BeanPropertyBindingResult(request, "movieRequest"));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> searchMovies() {
+        return moviesService.searchMovies("title 12", null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getStatistics() {
+        return moviesService.getStatistics();
+    }
+}
@@ -0,0 +1,111 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.DemoApplication;
+import com.rhb.interview.demo.dto.MovieFilter;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MoviesService;
+import com.rhb.interview.demo.service.impl.MovieShards;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The service from many threads at once with movies sharded over 1, 2 and 4 h2 databases in the same process, to see
+ * how throughput follows the shards. file storage writes every commit through to its own file under target/, mem
+ * only spreads the locking. The movie cache is off so getMovie reaches a shard every time
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ShardingBenchmark {
+    private static final int CATEGORIES = 20;
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    @Param({"mem", "file"})
+    private String storage;
+
+    @Param({"10000"})
+    private int movies;
+
+    private ConfigurableApplicationContext context;
+
+    private MoviesService moviesService;
+
+    private long[] ids;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        //only a template for the shard pools, never connected to
+        args.add("--spring.datasource.url=jdbc:h2:mem:sharding");
+        args.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        args.add("--spring.datasource.hikari.maximum-pool-size=32");
+        args.add("--movies.cache.maximum-size=0");
+        args.add("--movies.sharding.enabled=true");
+        for (int shard = 0; shard < shards; shard++) {
+            args.add("--movies.sharding.shards[" + shard + "].url=" + ("mem".equals(storage)
+                    ? "jdbc:h2:mem:shard" + shard + ";DB_CLOSE_DELAY=-1"
+                    : "jdbc:h2:file:./target/benchmark/shard" + shard + ";WRITE_DELAY=0"));
+        }
+        args.add("--logging.level.root=warn");
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+        moviesService = context.getBean(MoviesService.class);
+
+        //through the service so the movies are spread like any others
+        for (int i = 0; i < movies; i++) {
+            createMovie();
+        }
+        MoviesRepository moviesRepository = context.getBean(MoviesRepository.class);
+        List<Long> seeded = new ArrayList<>(movies);
+        context.getBean(MovieShards.class).forEachShard(shard ->
+                moviesRepository.findAll().stream().map(MoviesEntity::getId).forEach(seeded::add));
+        ids = seeded.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> createMovie() {
+        int i = next.incrementAndGet();
+        MovieRequest request = new MovieRequest();
+        request.setTitle("benchmark title " + i);
+        request.setCategory("category " + i % CATEGORIES);
+        request.setRating("3.5");
+        return moviesService.createMovie(request, new BeanPropertyBindingResult(request, "movieRequest"));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getMovie() {
+        return moviesService.getMovie(Long.toString(ids[ThreadLocalRandom.current().nextInt(ids.length)]), null, null);
+    }
+
+    //every shard is asked for a page and the pages merged
+    @Benchmark
+    public ResponseEntity<?> getMovies() {
+        return moviesService.getMovies(new MovieFilter("category 7", null, null), null, null, "title", null, null);
+    }
+}
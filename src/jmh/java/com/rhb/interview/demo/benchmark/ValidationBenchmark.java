@@ -0,0 +1,49 @@
+package com.rhb.interview.demo.benchmark;
+
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.ValidationResult;
+import com.rhb.interview.demo.service.impl.MovieValidation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rating check and binding error conversion, run for every create and update
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private BindingResult bindingErrors;
+
+    @Setup
+    public void setUp() {
+        MovieRequest request = new MovieRequest();
+        request.setRating("1.0");
+        bindingErrors = new BeanPropertyBindingResult(request, "movieRequest");
+        bindingErrors.rejectValue("title", "NotBlank", "Title cannot be blank");
+        bindingErrors.rejectValue("category", "NotBlank", "Category cannot be blank");
+    }
+
+    @Benchmark
+    public ValidationResult validateRating_valid() {
+        return MovieValidation.validateRating("4.5");
+    }
+
+    @Benchmark
+    public ValidationResult validateRating_invalid() {
+        return MovieValidation.validateRating("0.55");
+    }
+
+    //what getErrorsFromBind used to do, two field errors
+    @Benchmark
+    public ValidationResult fromBind() {
+        return MovieValidation.fromBind(bindingErrors);
+    }
+}
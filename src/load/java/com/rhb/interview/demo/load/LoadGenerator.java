@@ -0,0 +1,180 @@
+package com.rhb.interview.demo.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open model load: requests are started at a fixed arrival rate whatever the server does, the operation of
+ * each request is drawn by weight. Latency is measured from the time a request was due to start, not from
+ * when it was sent, so a stalled server (or a late sender) is charged for every request that had to wait
+ * instead of slowing the load down (coordinated omission)
+ */
+class LoadGenerator {
+    //anything slower than this is recorded as this
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client;
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    LoadGenerator(HttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * @param name    reported name of the operation
+     * @param weight  relative share of the requests
+     * @param request builds the next request, called on the sending thread
+     */
+    LoadGenerator operation(String name, int weight, Supplier<HttpRequest> request) {
+        operations.add(new Operation(name, weight, request));
+        totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * Runs the warm up then the measured phase at the same rate, only the measured phase is reported.
+     * Returns once every request of the measured phase has completed or timed out
+     */
+    Map<String, OperationResult> run(int requestsPerSecond, long warmUpNanos, long durationNanos) throws InterruptedException {
+        fire(requestsPerSecond, warmUpNanos, false);
+        for (Operation operation : operations) {
+            operation.reset();
+        }
+        long started = System.nanoTime();
+        fire(requestsPerSecond, durationNanos, true);
+        for (Operation operation : operations) {
+            operation.awaitCompletion();
+        }
+        long elapsed = System.nanoTime() - started;
+
+        Map<String, OperationResult> results = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            results.put(operation.name, new OperationResult(operation.name, operation.latencies.copy(),
+                    operation.errors.get(), elapsed));
+        }
+        return results;
+    }
+
+    private void fire(int requestsPerSecond, long durationNanos, boolean measured) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        long start = System.nanoTime();
+        long count = durationNanos / interval;
+        for (long i = 0; i < count; i++) {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(pick(), due, measured);
+        }
+    }
+
+    private Operation pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("no operation");
+    }
+
+    private void send(Operation operation, long due, boolean measured) {
+        if (!measured) {
+            client.sendAsync(operation.request.get(), HttpResponse.BodyHandlers.discarding());
+            return;
+        }
+        operation.inFlight.incrementAndGet();
+        client.sendAsync(operation.request.get(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    operation.latencies.recordValue(Math.min(System.nanoTime() - due, HIGHEST_LATENCY));
+                    if (failure != null || response.statusCode() >= 400) {
+                        operation.errors.incrementAndGet();
+                    }
+                    operation.inFlight.decrementAndGet();
+                });
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final int weight;
+        private final Supplier<HttpRequest> request;
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Operation(String name, int weight, Supplier<HttpRequest> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+
+        private void reset() {
+            latencies.reset();
+            errors.set(0);
+        }
+
+        private void awaitCompletion() throws InterruptedException {
+            while (inFlight.get() > 0) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Latencies in nanoseconds, requests that failed or answered 4xx/5xx are counted as errors and recorded too
+     */
+    static final class OperationResult {
+        private final String name;
+        private final Histogram latencies;
+        private final long errors;
+        private final long elapsedNanos;
+
+        OperationResult(String name, Histogram latencies, long errors, long elapsedNanos) {
+            this.name = name;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Histogram getLatencies() {
+            return latencies;
+        }
+
+        long getRequests() {
+            return latencies.getTotalCount();
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        double getThroughput() {
+            return getRequests() * 1e9 / elapsedNanos;
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+}
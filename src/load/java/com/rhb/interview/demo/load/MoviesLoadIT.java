@@ -0,0 +1,195 @@
+package com.rhb.interview.demo.load;
+
+import com.rhb.interview.demo.service.impl.MovieStatistics;
+import com.rhb.interview.demo.service.impl.MovieTitleIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds load.movies rows then drives a mixed read and write workload over http at load.rate requests per second,
+ * writes p50/p99/p99.9 and throughput per operation and fails when one of the load.threshold.* is exceeded.
+ * Settings are in load.properties, run with mvn -Pload verify
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:load", "logging.level.root=warn"})
+class MoviesLoadIT {
+    private static final String[] WORDS = {"red", "night", "river", "ghost", "summer", "city", "last", "king",
+            "silent", "star", "winter", "road", "dark", "golden", "storm", "love", "iron", "blue", "lost", "fire"};
+    private static final int CATEGORIES = 20;
+    private static final int SEED_BATCH = 10_000;
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private final Properties settings = settings();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MovieTitleIndex movieTitleIndex;
+
+    @Autowired
+    private MovieStatistics movieStatistics;
+
+    @Test
+    void test_mixed_workload_within_thresholds() throws Exception {
+        int movies = intSetting("load.movies");
+        int rate = intSetting("load.rate");
+        seed(movies);
+
+        String base = "http://localhost:" + port + "/movies";
+        LoadGenerator load = new LoadGenerator(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build())
+                .operation("getMovie", 50, () -> get(base + "/" + randomId(movies)))
+                .operation("getMovies", 15, () -> get(base))
+                .operation("getMoviesFiltered", 10, () -> get(base + "?category=category+" + random(CATEGORIES)
+                        + "&minRating=2&maxRating=4.5&sort=title"))
+                .operation("searchMovies", 10, () -> get(base + "/search?q=" + WORDS[random(WORDS.length)]))
+                .operation("getStatistics", 5, () -> get(base + "/stats"))
+                .operation("createMovie", 7, () -> send("POST", base, movieJson(random(movies))))
+                .operation("updateMovie", 3, () -> send("PUT", base + "/" + randomId(movies), movieJson(random(movies))));
+
+        Map<String, LoadGenerator.OperationResult> results = load.run(rate,
+                TimeUnit.SECONDS.toNanos(intSetting("load.warm-up-seconds")),
+                TimeUnit.SECONDS.toNanos(intSetting("load.duration-seconds")));
+
+        report(movies, rate, results);
+        List<String> failures = checkThresholds(rate, results);
+        assertTrue(failures.isEmpty(), "load thresholds exceeded:\n" + String.join("\n", failures));
+    }
+
+    //plain jdbc batches, millions of rows through the entity manager would take longer than the run itself
+    private void seed(int movies) {
+        for (int from = 0; from < movies; from += SEED_BATCH) {
+            List<Object[]> rows = new ArrayList<>(SEED_BATCH);
+            for (int i = from; i < Math.min(from + SEED_BATCH, movies); i++) {
+                rows.add(new Object[]{(long) i + 1, title(i), "category " + i % CATEGORIES, (byte) (i % 10 + 1)});
+            }
+            jdbcTemplate.batchUpdate("insert into movies_entity (id, title, category, rating, version) values (?, ?, ?, ?, 0)", rows);
+        }
+        //ids of created movies carry on after the seeded ones
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (movies + 1));
+        movieTitleIndex.rebuild();
+        movieStatistics.rebuild();
+    }
+
+    private List<String> checkThresholds(int rate, Map<String, LoadGenerator.OperationResult> results) {
+        List<String> failures = new ArrayList<>();
+        long requests = 0;
+        long errors = 0;
+        double throughput = 0;
+        for (LoadGenerator.OperationResult result : results.values()) {
+            requests += result.getRequests();
+            errors += result.getErrors();
+            throughput += result.getThroughput();
+            checkPercentile(failures, result, "p99", 99.0);
+            checkPercentile(failures, result, "p999", 99.9);
+        }
+        double errorRate = requests == 0 ? 1 : (double) errors / requests;
+        if (errorRate > doubleSetting("load.threshold.max-error-rate")) {
+            failures.add(String.format("error rate %.4f over %s", errorRate, settings.getProperty("load.threshold.max-error-rate")));
+        }
+        if (throughput < rate * doubleSetting("load.threshold.min-throughput-ratio")) {
+            failures.add(String.format("throughput %.1f req/s for a rate of %d", throughput, rate));
+        }
+        return failures;
+    }
+
+    private void checkPercentile(List<String> failures, LoadGenerator.OperationResult result, String name, double percentile) {
+        String threshold = settings.getProperty("load.threshold." + result.getName() + "." + name + "-ms");
+        if (threshold != null && result.percentileMillis(percentile) > Double.parseDouble(threshold)) {
+            failures.add(String.format("%s %s %.1f ms over %s ms", result.getName(), name, result.percentileMillis(percentile), threshold));
+        }
+    }
+
+    private void report(int movies, int rate, Map<String, LoadGenerator.OperationResult> results) throws IOException {
+        Path directory = Paths.get(settings.getProperty("load.report-directory"));
+        Files.createDirectories(directory);
+        StringBuilder summary = new StringBuilder(String.format("%d movies, %d requests/s%n%-18s %9s %9s %7s %9s %9s %9s %9s%n",
+                movies, rate, "operation", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (LoadGenerator.OperationResult result : results.values()) {
+            summary.append(String.format("%-18s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f%n", result.getName(),
+                    result.getRequests(), result.getThroughput(), result.getErrors(), result.percentileMillis(50),
+                    result.percentileMillis(99), result.percentileMillis(99.9), result.getLatencies().getMaxValue() / 1e6));
+            //hdrhistogram percentile distribution, in milliseconds, for plotting or comparing runs
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(result.getName() + ".hgrm")))) {
+                result.getLatencies().outputPercentileDistribution(out, 1e6);
+            }
+        }
+        Files.writeString(directory.resolve("summary.txt"), summary);
+        System.out.print(summary);
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(TIMEOUT).build();
+    }
+
+    private static HttpRequest send(String method, String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String movieJson(int i) {
+        return "{\"title\":\"" + title(i) + "\",\"category\":\"category " + i % CATEGORIES + "\",\"rating\":\"3.5\"}";
+    }
+
+    private static String title(int i) {
+        return WORDS[i % WORDS.length] + " " + WORDS[i / WORDS.length % WORDS.length] + " " + i;
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static long randomId(int movies) {
+        return random(movies) + 1L;
+    }
+
+    private int intSetting(String name) {
+        return Integer.parseInt(settings.getProperty(name));
+    }
+
+    private double doubleSetting(String name) {
+        return Double.parseDouble(settings.getProperty(name));
+    }
+
+    //load.properties overridden by load.* system properties
+    private static Properties settings() {
+        Properties settings = new Properties();
+        try (InputStream defaults = MoviesLoadIT.class.getResourceAsStream("/load.properties")) {
+            settings.load(defaults);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("load."))
+                .forEach(name -> settings.setProperty(name, System.getProperty(name)));
+        return settings;
+    }
+}
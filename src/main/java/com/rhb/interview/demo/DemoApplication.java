@@ -1,9 +1,13 @@
 package com.rhb.interview.demo;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.metrics.data.RepositoryMetricsAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
-@SpringBootApplication
+//repository timers are set up by RepositoryMetricsConfiguration instead
+@SpringBootApplication(exclude = RepositoryMetricsAutoConfiguration.class)
+@ConfigurationPropertiesScan
 public class DemoApplication {
 
 	public static void main(String[] args) {
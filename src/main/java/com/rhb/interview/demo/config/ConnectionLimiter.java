@@ -0,0 +1,136 @@
+package com.rhb.interview.demo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fair semaphore in front of the connection pool
+ * callers beyond maxConcurrent park here in arrival order, which costs a virtual thread next to nothing,
+ * instead of piling up inside the pool. Queue depth and time spent waiting are counted for /actuator/connectionlimiter
+ * and published as movies.connection.limiter.* meters
+ */
+public class ConnectionLimiter implements MeterBinder {
+    private final Semaphore permits;
+
+    private final int maxConcurrent;
+
+    private final long timeoutNanos;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final AtomicInteger maxWaiting = new AtomicInteger();
+
+    private final LongAdder acquired = new LongAdder();
+
+    private final LongAdder queued = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    public ConnectionLimiter(ConnectionLimiterProperties properties) {
+        this.maxConcurrent = properties.getMaxConcurrent();
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.timeoutNanos = properties.getTimeout().toNanos();
+    }
+
+    /**
+     * Take a permit, waiting up to the timeout for one
+     * @throws SQLTransientConnectionException when none came free in time, like the pool would have thrown
+     */
+    public void acquire() throws SQLTransientConnectionException {
+        //zero timeout still honours the queue of a fair semaphore, unlike tryAcquire()
+        try {
+            if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                acquired.increment();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        }
+
+        maxWaiting.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+        long started = System.nanoTime();
+        boolean granted;
+        try {
+            granted = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        long waited = System.nanoTime() - started;
+        if (!granted) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException("No connection available after " + waited / 1_000_000 + " ms, "
+                    + maxConcurrent + " in use");
+        }
+        acquired.increment();
+        queued.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public Map<String, Object> statistics() {
+        long queuedCount = queued.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("maxConcurrent", maxConcurrent);
+        statistics.put("inUse", maxConcurrent - permits.availablePermits());
+        statistics.put("waiting", waiting.get());
+        statistics.put("maxWaiting", maxWaiting.get());
+        statistics.put("acquired", acquired.sum());
+        statistics.put("queued", queuedCount);
+        statistics.put("timeouts", timeouts.sum());
+        statistics.put("averageWaitNanos", queuedCount == 0 ? 0 : waitNanos.sum() / queuedCount);
+        statistics.put("maxWaitNanos", maxWaitNanos.get());
+        return statistics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("movies.connection.limiter.max.concurrent", this, limiter -> limiter.maxConcurrent)
+                .description("Connections the limiter lets through at once")
+                .register(registry);
+        Gauge.builder("movies.connection.limiter.in.use", this, limiter -> limiter.maxConcurrent - limiter.permits.availablePermits())
+                .description("Callers holding a permit")
+                .register(registry);
+        Gauge.builder("movies.connection.limiter.waiting", waiting, AtomicInteger::get)
+                .description("Callers queued for a permit")
+                .register(registry);
+        FunctionCounter.builder("movies.connection.limiter.acquired", acquired, LongAdder::sum)
+                .description("Permits handed out")
+                .register(registry);
+        FunctionCounter.builder("movies.connection.limiter.timeouts", timeouts, LongAdder::sum)
+                .description("Callers that gave up waiting")
+                .register(registry);
+        //only callers that had to queue, an immediate permit is not timed
+        FunctionTimer.builder("movies.connection.limiter.wait", this,
+                        limiter -> limiter.queued.sum(), limiter -> limiter.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time queued callers waited for a permit")
+                .register(registry);
+    }
+}
@@ -0,0 +1,38 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts the ConnectionLimiter in front of the pool when movies.connection-limiter.enabled is set
+ * the limit sits on the DataSource rather than on MoviesRepository since a transaction takes its
+ * connection when it begins, before the first repository call
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "movies.connection-limiter", name = "enabled", havingValue = "true")
+public class ConnectionLimiterConfiguration {
+
+    @Bean
+    public ConnectionLimiter connectionLimiter(ConnectionLimiterProperties properties) {
+        return new ConnectionLimiter(properties);
+    }
+
+    //static and lazy so registering it does not create the limiter and its properties too early
+    @Bean
+    public static BeanPostProcessor limitedDataSourcePostProcessor(ObjectProvider<ConnectionLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof LimitedDataSource)) {
+                    return new LimitedDataSource((DataSource) bean, limiter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limit on database connections handed out at once
+ * bound from movies.connection-limiter.*
+ */
+@ConfigurationProperties(prefix = "movies.connection-limiter")
+public class ConnectionLimiterProperties {
+    //off by default, the virtual-threads profile turns it on
+    private boolean enabled = false;
+
+    //connections in use at once, keep it at spring.datasource.hikari.maximum-pool-size
+    private int maxConcurrent = 10;
+
+    //how long a caller queues before giving up, same as hikari's connection timeout
+    private Duration timeout = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
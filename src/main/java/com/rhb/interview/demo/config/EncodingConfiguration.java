@@ -0,0 +1,38 @@
+package com.rhb.interview.demo.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rhb.interview.demo.controller.MovieProtobufHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the movie responses next to json, picked by the Accept header of the request
+ * cbor and smile are jackson writing the same properties as the json (and configured by the same spring.jackson.*),
+ * protobuf is the schema of src/main/proto/movies.proto. Spring boot puts these ahead of its default converters,
+ * the ones it would add itself for cbor and smile are replaced rather than doubled
+ */
+@Configuration
+@Profile("!reactive")
+public class EncodingConfiguration {
+
+    //the builder is a prototype, each converter gets its own
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MovieProtobufHttpMessageConverter movieProtobufHttpMessageConverter() {
+        return new MovieProtobufHttpMessageConverter();
+    }
+}
@@ -0,0 +1,67 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Group commit of concurrent movie creates
+ * bound from movies.group-commit.*
+ */
+@ConfigurationProperties(prefix = "movies.group-commit")
+public class GroupCommitProperties {
+    //off by default, every create commits alone
+    private boolean enabled = false;
+
+    //creates written in one transaction at most, keep it at or below hibernate.jdbc.batch_size for a single insert batch
+    private int maxBatchSize = 100;
+
+    //how long the first create of a batch waits for others to join, 0 only takes what is already queued
+    private Duration maxLinger = Duration.ofMillis(2);
+
+    //creates waiting for the writer at most, a create finding the queue full waits for room
+    private int maxQueued = 10000;
+
+    //how long a create waits for room in the queue and then for its batch to commit before it fails
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Duration getMaxLinger() {
+        return maxLinger;
+    }
+
+    public void setMaxLinger(Duration maxLinger) {
+        this.maxLinger = maxLinger;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+}
@@ -0,0 +1,78 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Streaming movie import, over http at POST /movies/_import or from a file at startup
+ * bound from movies.import.*
+ */
+@ConfigurationProperties(prefix = "movies.import")
+public class ImportProperties {
+    //rows per transaction and jdbc batch, only this many rows are held in memory
+    private int batchSize = 5000;
+
+    //a longer row is rejected without being buffered
+    private int maxRowLength = 64 * 1024;
+
+    //rejected rows listed in the http response, the file import writes all of them
+    private int maxReportedRejections = 1000;
+
+    //how often a running import logs its progress
+    private Duration progressInterval = Duration.ofSeconds(5);
+
+    //imported once the application started, csv or ndjson by extension
+    private String file;
+
+    //where the file import writes its rejected rows as ndjson, next to the file by default
+    private String rejectedFile;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxRowLength() {
+        return maxRowLength;
+    }
+
+    public void setMaxRowLength(int maxRowLength) {
+        this.maxRowLength = maxRowLength;
+    }
+
+    public int getMaxReportedRejections() {
+        return maxReportedRejections;
+    }
+
+    public void setMaxReportedRejections(int maxReportedRejections) {
+        this.maxReportedRejections = maxReportedRejections;
+    }
+
+    public Duration getProgressInterval() {
+        return progressInterval;
+    }
+
+    public void setProgressInterval(Duration progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getRejectedFile() {
+        return rejectedFile;
+    }
+
+    public void setRejectedFile(String rejectedFile) {
+        this.rejectedFile = rejectedFile;
+    }
+}
@@ -0,0 +1,64 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource that takes a ConnectionLimiter permit before asking the pool for a connection
+ * and gives it back when the connection is closed, so the limit covers the whole time a
+ * transaction holds its connection and not just single statements
+ */
+public class LimitedDataSource extends DelegatingDataSource {
+    private final ConnectionLimiter limiter;
+
+    public LimitedDataSource(DataSource targetDataSource, ConnectionLimiter limiter) {
+        super(targetDataSource);
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        limiter.acquire();
+        return limited(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        limiter.acquire();
+        return limited(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection limited(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            limiter.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        //close may be called more than once, only the first gives the permit back
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            limiter.release();
+                        }
+                    }
+                });
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
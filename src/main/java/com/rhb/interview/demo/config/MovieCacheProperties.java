@@ -0,0 +1,45 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the single movie read through cache
+ * bound from movies.cache.*
+ */
+@ConfigurationProperties(prefix = "movies.cache")
+public class MovieCacheProperties {
+    //entries kept before the least valuable ones are evicted, 0 turns the cache off
+    private long maximumSize = 10_000;
+
+    //how long a found movie is served from memory
+    private Duration ttl = Duration.ofMinutes(10);
+
+    //how long a 404 is remembered, kept short since a create can make the id valid
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    public void setNegativeTtl(Duration negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+}
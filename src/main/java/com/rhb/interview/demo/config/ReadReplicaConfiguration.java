@@ -0,0 +1,67 @@
+package com.rhb.interview.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the DataSource spring boot would have created with a ReadWriteRoutingDataSource when
+ * movies.read-replicas.enabled is set. The primary is built from spring.datasource.* as boot builds it, every replica
+ * copies its pool settings. The pools are not beans of their own, the sql accounting and the connection limiter
+ * wrap the routing DataSource once instead of every pool
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "movies.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, ReadReplicaProperties properties,
+                                                 Environment environment, ObjectProvider<MeterRegistry> registry) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new IllegalStateException("movies.read-replicas.enabled is set without any movies.read-replicas.replicas");
+        }
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ReadReplicaProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            primary.copyStateTo(pool);
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setJdbcUrl(replica.getUrl());
+            if (StringUtils.hasText(replica.getUsername())) {
+                pool.setUsername(replica.getUsername());
+                pool.setPassword(replica.getPassword());
+            }
+            if (replica.getMaximumPoolSize() != null) {
+                pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            }
+            replicas.add(pool);
+        }
+
+        //boot only publishes the pool it finds behind the DataSource bean, which here is the primary alone
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        if (meterRegistry != null) {
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)));
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, properties.getSelection());
+    }
+}
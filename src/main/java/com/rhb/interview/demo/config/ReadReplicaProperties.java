@@ -0,0 +1,108 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read only transactions on replicas of the database, writes on spring.datasource
+ * bound from movies.read-replicas.*
+ */
+@ConfigurationProperties(prefix = "movies.read-replicas")
+public class ReadReplicaProperties {
+    //off by default, everything then goes to spring.datasource
+    private boolean enabled = false;
+
+    //how the replica of a read only transaction is picked
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    //a client reads from the primary for this long after its last write, 0 turns it off
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    public void setSelection(Selection selection) {
+        this.selection = selection;
+    }
+
+    public Duration getReadYourWrites() {
+        return readYourWrites;
+    }
+
+    public void setReadYourWrites(Duration readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public enum Selection {
+        //each replica in turn
+        ROUND_ROBIN,
+        //the replica with the fewest connections in use, the first of them on a tie
+        LEAST_CONNECTIONS
+    }
+
+    public static class Replica {
+        private String url;
+
+        //spring.datasource's when not set
+        private String username;
+
+        private String password;
+
+        //spring.datasource.hikari's when not set
+        private Integer maximumPoolSize;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Integer getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(Integer maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
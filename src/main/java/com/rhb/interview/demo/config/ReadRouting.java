@@ -0,0 +1,53 @@
+package com.rhb.interview.demo.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the read only transactions of the current thread on the primary when read replicas are on,
+ * see ReadWriteRoutingDataSource. For a client inside its read your writes window, and for reads whose result
+ * outlives the request (caches, in memory indexes) where a lagging replica would keep a stale row around.
+ * Without replicas there is only the primary and this changes nothing
+ */
+public final class ReadRouting {
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * @return what reads returns, read from the primary
+     */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY.remove();
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable reads) {
+        onPrimary(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    /**
+     * Everything the current thread reads goes to the primary until unpin
+     */
+    public static void pinPrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PRIMARY.remove();
+    }
+
+    static boolean isPrimary() {
+        return PRIMARY.get() != null;
+    }
+}
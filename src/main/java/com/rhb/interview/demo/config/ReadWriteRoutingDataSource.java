@@ -0,0 +1,89 @@
+package com.rhb.interview.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource handing read only transactions a connection of a replica and everything else one of the primary,
+ * unless ReadRouting keeps the thread on the primary.
+ * The transaction manager asks for its connection before it marks the transaction read only, so the connection is
+ * only taken from a pool once the first statement runs, when the flag is known. Closing it closes every pool
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+
+    private final List<HikariDataSource> replicas;
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, ReadReplicaProperties.Selection selection) {
+        super(new Router(primary, replicas, selection));
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    private static final class Router extends AbstractRoutingDataSource {
+        private final List<HikariDataSource> replicas;
+
+        private final ReadReplicaProperties.Selection selection;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Router(HikariDataSource primary, List<HikariDataSource> replicas, ReadReplicaProperties.Selection selection) {
+            this.replicas = new ArrayList<>(replicas);
+            this.selection = selection;
+            //replicas are looked up by their index
+            Map<Object, Object> targets = new HashMap<>();
+            targets.put(PRIMARY, primary);
+            for (int i = 0; i < replicas.size(); i++) {
+                targets.put(i, replicas.get(i));
+            }
+            setTargetDataSources(targets);
+            setDefaultTargetDataSource(primary);
+            setLenientFallback(false);
+            afterPropertiesSet();
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadRouting.isPrimary()) {
+                return PRIMARY;
+            }
+            if (selection == ReadReplicaProperties.Selection.LEAST_CONNECTIONS) {
+                return leastConnections();
+            }
+            return Math.floorMod(next.getAndIncrement(), replicas.size());
+        }
+
+        private int leastConnections() {
+            int least = 0;
+            int fewest = Integer.MAX_VALUE;
+            for (int i = 0; i < replicas.size(); i++) {
+                //no pool yet before its first connection
+                HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+                int active = pool == null ? 0 : pool.getActiveConnections();
+                if (active < fewest) {
+                    least = i;
+                    fewest = active;
+                }
+            }
+            return least;
+        }
+    }
+}
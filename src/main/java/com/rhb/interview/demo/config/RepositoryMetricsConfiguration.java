@@ -0,0 +1,41 @@
+package com.rhb.interview.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.AutoTimer;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.util.function.SingletonSupplier;
+
+/**
+ * Times every MoviesRepository method as spring.data.repository.invocations, tagged repository, method, state and exception.
+ * This is what spring boot's RepositoryMetricsAutoConfiguration does (excluded on DemoApplication), but in 2.5.0 its post
+ * processor creates the MeterRegistry before the registry is configured, losing the common tags, histograms and meter
+ * binders of every other metric. Here the registry is only looked up on the first repository call
+ */
+@Configuration
+public class RepositoryMetricsConfiguration {
+    public static final String METRIC_NAME = "spring.data.repository.invocations";
+
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        SingletonSupplier<RepositoryMethodInvocationListener> listener = SingletonSupplier.of(() ->
+                new MetricsRepositoryMethodInvocationListener(registry.getObject(), new DefaultRepositoryTagsProvider(),
+                        METRIC_NAME, AutoTimer.ENABLED));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addInvocationListener(invocation -> listener.obtain().afterInvocation(invocation)));
+                }
+                return bean;
+            }
+        };
+    }
+}
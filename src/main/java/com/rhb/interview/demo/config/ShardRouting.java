@@ -0,0 +1,64 @@
+package com.rhb.interview.demo.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread works on when movies are sharded, see ShardRoutingDataSource.
+ * The shard of a movie is part of its id, the bits from SHARD_SHIFT up, below them is the id the shard's own
+ * sequence handed out. Shard 0 ids are plain sequence values, so a single database is shard 0 of one and
+ * the ids of a database that becomes shard 0 stay valid. A thread that picked no shard is on shard 0
+ */
+public final class ShardRouting {
+    public static final int SHARD_SHIFT = 48;
+
+    public static final int MAX_SHARDS = 1024;
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    /**
+     * @return what work returns, run against the given shard
+     */
+    public static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+
+    public static void onShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the shard of the current thread, 0 when it picked none
+     */
+    public static int current() {
+        Integer shard = SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static int shardOf(long id) {
+        return (int) (id >>> SHARD_SHIFT) & (MAX_SHARDS - 1);
+    }
+
+    /**
+     * @param local a value of the shard's sequence
+     * @return the id of a movie on the shard
+     */
+    public static long idOn(int shard, long local) {
+        return (long) shard << SHARD_SHIFT | local;
+    }
+}
@@ -0,0 +1,54 @@
+package com.rhb.interview.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataSource handing out a connection of the shard ShardRouting has the current thread on, shard 0 when none.
+ * As with the read replicas the connection is only taken from a pool once the first statement runs, so a transaction
+ * begun before the shard is picked still ends up on it. Closing it closes every pool
+ */
+public class ShardRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        super(new Router(shards));
+        this.shards = new ArrayList<>(shards);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+
+    private static final class Router extends AbstractRoutingDataSource {
+
+        private Router(List<HikariDataSource> shards) {
+            //shards are looked up by their index, one that is not configured fails instead of falling back to shard 0
+            Map<Object, Object> targets = new HashMap<>();
+            for (int i = 0; i < shards.size(); i++) {
+                targets.put(i, shards.get(i));
+            }
+            setTargetDataSources(targets);
+            setDefaultTargetDataSource(shards.get(0));
+            setLenientFallback(false);
+            afterPropertiesSet();
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return ShardRouting.current();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.rhb.interview.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the DataSource spring boot would have created with a ShardRoutingDataSource when movies.sharding.enabled
+ * is set. Every shard is a pool built like spring.datasource's and takes its credentials and pool settings unless it
+ * sets its own. As with the read replicas the pools are not beans of their own.
+ * Hibernate creates the schema through the routing DataSource, so on shard 0 only. With ddl-auto create the same
+ * statements are written out as a script too and run on every other shard before anything reads them
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "movies.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfiguration {
+    private final StringWriter dropScript = new StringWriter();
+
+    private final StringWriter createScript = new StringWriter();
+
+    @Bean
+    public ShardRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, ShardingProperties properties,
+                                             ReadReplicaProperties readReplicas, Environment environment,
+                                             ObjectProvider<MeterRegistry> registry) {
+        if (properties.getShards().isEmpty() || properties.getShards().size() > ShardRouting.MAX_SHARDS) {
+            throw new IllegalStateException("movies.sharding.enabled needs 1 to " + ShardRouting.MAX_SHARDS + " movies.sharding.shards");
+        }
+        if (readReplicas.isEnabled()) {
+            throw new IllegalStateException("movies.sharding and movies.read-replicas cannot be enabled together");
+        }
+        //spring.datasource's url only stands in until each shard's own is set
+        HikariDataSource template = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(template));
+
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource pool = new HikariDataSource();
+            template.copyStateTo(pool);
+            pool.setPoolName("shard-" + shards.size());
+            pool.setJdbcUrl(shard.getUrl());
+            //the copied driver is the one of spring.datasource.url, a shard may be another database
+            String driver = DatabaseDriver.fromJdbcUrl(shard.getUrl()).getDriverClassName();
+            if (driver != null) {
+                pool.setDriverClassName(driver);
+            }
+            if (StringUtils.hasText(shard.getUsername())) {
+                pool.setUsername(shard.getUsername());
+                pool.setPassword(shard.getPassword());
+            }
+            if (shard.getMaximumPoolSize() != null) {
+                pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            }
+            //boot would only publish a pool it found behind the DataSource bean
+            if (meterRegistry != null) {
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            }
+            shards.add(pool);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaScript() {
+        return hibernateProperties -> {
+            Object ddlAuto = hibernateProperties.get(AvailableSettings.HBM2DDL_AUTO);
+            if (!"create".equals(ddlAuto) && !"create-drop".equals(ddlAuto)) {
+                return;
+            }
+            //hibernate ignores hbm2ddl.auto once a scripts action is set, the database action has to be given as well
+            hibernateProperties.put(AvailableSettings.HBM2DDL_DATABASE_ACTION, "create".equals(ddlAuto) ? "drop-and-create" : "create-drop");
+            hibernateProperties.put(AvailableSettings.HBM2DDL_SCRIPTS_ACTION, "drop-and-create");
+            hibernateProperties.put(AvailableSettings.HBM2DDL_SCRIPTS_DROP_TARGET, dropScript);
+            hibernateProperties.put(AvailableSettings.HBM2DDL_SCRIPTS_CREATE_TARGET, createScript);
+            hibernateProperties.put(AvailableSettings.HBM2DDL_DELIMITER, ";");
+        };
+    }
+
+    //after every singleton, so after the entity manager factory wrote the scripts and before the application is ready
+    @Bean
+    public SmartInitializingSingleton shardSchemaCreation(DataSource dataSource, ShardingProperties properties) {
+        return () -> {
+            if (createScript.getBuffer().length() == 0) {
+                return;
+            }
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                    new ByteArrayResource(dropScript.toString().getBytes(StandardCharsets.UTF_8)),
+                    new ByteArrayResource(createScript.toString().getBytes(StandardCharsets.UTF_8)));
+            populator.setIgnoreFailedDrops(true);
+            for (int shard = 1; shard < properties.getShardCount(); shard++) {
+                ShardRouting.onShard(shard, () -> populator.execute(dataSource));
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Movies spread over several databases, the shard of a movie is part of its id (see ShardRouting)
+ * bound from movies.sharding.*
+ */
+@ConfigurationProperties(prefix = "movies.sharding")
+public class ShardingProperties {
+    //off by default, everything then goes to spring.datasource
+    private boolean enabled = false;
+
+    //threads reading the shards of a movie list in parallel, shared by all requests
+    private int scatterThreads = 16;
+
+    //in shard order, movies already on a shard keep its index in their id so shards are only ever added at the end
+    private List<Shard> shards = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getScatterThreads() {
+        return scatterThreads;
+    }
+
+    public void setScatterThreads(int scatterThreads) {
+        this.scatterThreads = scatterThreads;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * @return shards movies are spread over, 1 when sharding is off
+     */
+    public int getShardCount() {
+        return enabled ? shards.size() : 1;
+    }
+
+    public static class Shard {
+        private String url;
+
+        //spring.datasource's when not set
+        private String username;
+
+        private String password;
+
+        //spring.datasource.hikari's when not set
+        private Integer maximumPoolSize;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Integer getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(Integer maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.rhb.interview.demo.config;
+
+/**
+ * Statements run and time spent in them by the current request, filled in by SqlAccountingDataSource on the
+ * thread that runs the statements. Work the request hands to another thread, like a streamed response body,
+ * is not counted
+ */
+public final class SqlAccounting {
+    private static final ThreadLocal<SqlAccounting> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long nanos;
+
+    private SqlAccounting() {
+    }
+
+    /**
+     * Starts counting for the current thread, replacing whatever was counted before
+     */
+    public static SqlAccounting start() {
+        SqlAccounting accounting = new SqlAccounting();
+        CURRENT.set(accounting);
+        return accounting;
+    }
+
+    /**
+     * @return the counts of the current thread, null when nothing is counting
+     */
+    public static SqlAccounting current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void record(long statementNanos) {
+        statements++;
+        nanos += statementNanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
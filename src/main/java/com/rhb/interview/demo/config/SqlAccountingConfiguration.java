@@ -0,0 +1,50 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Times the statements of every DataSource unless movies.sql-accounting.enabled is off
+ * the counts per request are collected by SqlAccountingFilter
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "movies.sql-accounting", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlAccountingConfiguration {
+
+    //static and lazy for the same reason as the connection limiter's
+    @Bean
+    public static SqlAccountingDataSourcePostProcessor sqlAccountingDataSourcePostProcessor(ObjectProvider<SqlAccountingProperties> properties) {
+        return new SqlAccountingDataSourcePostProcessor(properties);
+    }
+
+    /**
+     * Ordered so it runs before the connection limiter's, which then ends up outermost and takes its permit
+     * before a connection is asked for. The bean's declared type has to show it, spring sorts post processors by it
+     */
+    static class SqlAccountingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+        private final ObjectProvider<SqlAccountingProperties> properties;
+
+        SqlAccountingDataSourcePostProcessor(ObjectProvider<SqlAccountingProperties> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !(bean instanceof SqlAccountingDataSource)) {
+                return new SqlAccountingDataSource((DataSource) bean, properties.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
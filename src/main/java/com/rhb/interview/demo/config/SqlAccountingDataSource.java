@@ -0,0 +1,94 @@
+package com.rhb.interview.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource whose statements time their executions, for SqlAccounting and the slow statement log.
+ * Every execute call is one statement, a jdbc batch included since it is one round trip. The time is the
+ * execute call itself, rows fetched afterwards through the ResultSet are not included
+ */
+public class SqlAccountingDataSource extends DelegatingDataSource {
+    //structured so it can be parsed or filtered by key
+    private static final Logger slowStatements = LoggerFactory.getLogger("com.rhb.interview.demo.sql.slow");
+
+    private final long slowThresholdNanos;
+
+    public SqlAccountingDataSource(DataSource targetDataSource, SqlAccountingProperties properties) {
+        super(targetDataSource);
+        this.slowThresholdNanos = properties.getSlowStatementThreshold().toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return accounted(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return accounted(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection accounted(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement) {
+                        //prepared statements carry their sql, plain ones get it on execute
+                        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                        return accounted((Statement) result, statementType(result), sql);
+                    }
+                    return result;
+                });
+    }
+
+    private static Class<?> statementType(Object statement) {
+        if (statement instanceof CallableStatement) {
+            return CallableStatement.class;
+        }
+        return statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+    }
+
+    private Statement accounted(Statement statement, Class<?> type, String preparedSql) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    long started = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        long elapsed = System.nanoTime() - started;
+                        SqlAccounting accounting = SqlAccounting.current();
+                        if (accounting != null) {
+                            accounting.record(elapsed);
+                        }
+                        if (elapsed >= slowThresholdNanos) {
+                            String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? String.valueOf(args[0]) : method.getName();
+                            slowStatements.warn("slow_statement duration_ms={} call={} request_statements={} sql=\"{}\"",
+                                    elapsed / 1_000_000, method.getName(), accounting == null ? "none" : accounting.getStatements(), sql);
+                        }
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Per request statement counts and database time, and the slow statement log
+ * bound from movies.sql-accounting.*
+ */
+@ConfigurationProperties(prefix = "movies.sql-accounting")
+public class SqlAccountingProperties {
+    //statements are timed and counted unless this is off
+    private boolean enabled = true;
+
+    //X-Sql-Statements and X-Sql-Time-Micros headers on responses, for non production environments
+    private boolean headers = false;
+
+    //statements slower than this are logged by com.rhb.interview.demo.sql.slow
+    private Duration slowStatementThreshold = Duration.ofMillis(500);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(boolean headers) {
+        this.headers = headers;
+    }
+
+    public Duration getSlowStatementThreshold() {
+        return slowStatementThreshold;
+    }
+
+    public void setSlowStatementThreshold(Duration slowStatementThreshold) {
+        this.slowStatementThreshold = slowStatementThreshold;
+    }
+}
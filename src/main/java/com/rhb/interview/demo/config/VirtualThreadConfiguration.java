@@ -0,0 +1,44 @@
+package com.rhb.interview.demo.config;
+
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every tomcat request, and the mvc async work behind streamed responses, on its own virtual thread
+ * so idle keep alive connections and requests waiting on the database no longer hold a platform thread.
+ * Needs a java 21 runtime, the executor is looked up reflectively because the code is still compiled
+ * for an older release (see the virtual-threads profile in pom.xml)
+ */
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("The virtual-threads profile needs java 21 or later, running on " + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    //replaces boot's applicationTaskExecutor, which mvc uses for StreamingResponseBody
+    @Bean(name = "applicationTaskExecutor")
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
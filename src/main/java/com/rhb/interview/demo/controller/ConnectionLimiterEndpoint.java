@@ -0,0 +1,31 @@
+package com.rhb.interview.demo.controller;
+
+import com.rhb.interview.demo.config.ConnectionLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Connections in use, callers queued for one and how long they waited at /actuator/connectionlimiter
+ */
+@Component
+@Endpoint(id = "connectionlimiter")
+@ConditionalOnProperty(prefix = "movies.connection-limiter", name = "enabled", havingValue = "true")
+public class ConnectionLimiterEndpoint {
+
+    private final ConnectionLimiter connectionLimiter;
+
+    @Autowired
+    public ConnectionLimiterEndpoint(ConnectionLimiter connectionLimiter) {
+        this.connectionLimiter = connectionLimiter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return connectionLimiter.statistics();
+    }
+}
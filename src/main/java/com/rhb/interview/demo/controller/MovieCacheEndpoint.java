@@ -0,0 +1,29 @@
+package com.rhb.interview.demo.controller;
+
+import com.rhb.interview.demo.service.impl.MovieCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Hit, miss and eviction counters of the movie cache at /actuator/moviecache, used to size movies.cache.*
+ */
+@Component
+@Endpoint(id = "moviecache")
+public class MovieCacheEndpoint {
+
+    private final MovieCache movieCache;
+
+    @Autowired
+    public MovieCacheEndpoint(MovieCache movieCache) {
+        this.movieCache = movieCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return movieCache.statistics();
+    }
+}
@@ -0,0 +1,85 @@
+package com.rhb.interview.demo.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rhb.interview.demo.config.ImportProperties;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.ImportRejectedRow;
+import com.rhb.interview.demo.dto.ImportResponse;
+import com.rhb.interview.demo.service.impl.MovieImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Imports movies.import.file once the application has started, csv or ndjson by the file extension
+ * every rejected row is written as one json line to movies.import.rejected-file, by default the file name with
+ * .rejected.ndjson appended. Run with spring.main.web-application-type=none for a one off import that exits when done
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "movies.import", name = "file")
+public class MovieImportRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(MovieImportRunner.class);
+
+    private final MovieImporter movieImporter;
+
+    private final ImportProperties properties;
+
+    private final ObjectWriter rejectionWriter;
+
+    @Autowired
+    public MovieImportRunner(MovieImporter movieImporter, ImportProperties properties, ObjectMapper objectMapper) {
+        this.movieImporter = movieImporter;
+        this.properties = properties;
+        this.rejectionWriter = objectMapper.writerFor(ImportRejectedRow.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path file = Paths.get(properties.getFile());
+        CatalogFormat format = CatalogFormat.fromFileName(file.getFileName().toString())
+                .orElseThrow(() -> new IllegalArgumentException("Cannot tell the import format of " + file + ", expected .csv, .ndjson or .jsonl"));
+        Path rejectedFile = properties.getRejectedFile() != null
+                ? Paths.get(properties.getRejectedFile())
+                : file.resolveSibling(file.getFileName() + ".rejected.ndjson");
+
+        log.info("Importing {} as {}, rejected rows go to {}", file, format, rejectedFile);
+        ImportResponse response;
+        try (Reader input = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             BufferedWriter rejected = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8);
+             JsonGenerator generator = rejectionWriter.getFactory().createGenerator(rejected)) {
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            response = movieImporter.importMovies(input, format, row -> {
+                try {
+                    rejectionWriter.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        if (response.getError() != null) {
+            throw new IllegalStateException("Import of " + file + " stopped after " + response.getRead() + " rows read, "
+                    + response.getImported() + " imported: " + response.getError());
+        }
+        log.info("Imported {}: {} rows read, {} imported, {} rejected", file, response.getRead(), response.getImported(), response.getRejected());
+    }
+}
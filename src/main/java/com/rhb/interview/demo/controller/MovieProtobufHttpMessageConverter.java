@@ -0,0 +1,142 @@
+package com.rhb.interview.demo.controller;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.rhb.interview.demo.dto.AbstractRestResponse;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.dto.MoviesResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes MoviesResponse and MovieResponse as the messages of src/main/proto/movies.proto
+ * encoded field by field straight from the dtos, no generated classes and no copy of the response.
+ * Fields that are null or empty are left out as proto3 does. Responses only, requests stay json
+ */
+public class MovieProtobufHttpMessageConverter extends AbstractHttpMessageConverter<AbstractRestResponse> {
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE);
+    //the response stream buffers already, a larger one only costs allocation on small responses
+    private static final int BUFFER_SIZE = 1024;
+
+    //field numbers, see movies.proto
+    private static final int MOVIE_ID = 1;
+    private static final int MOVIE_TITLE = 2;
+    private static final int MOVIE_CATEGORY = 3;
+    private static final int MOVIE_RATING = 4;
+    private static final int MOVIES_MOVIES = 1;
+    private static final int MOVIES_NEXT_CURSOR = 2;
+    private static final int MOVIES_ERRORS = 3;
+    private static final int MOVIES_ERROR = 4;
+    private static final int MOVIE_RESPONSE_ERRORS = 5;
+    private static final int MOVIE_RESPONSE_ERROR = 6;
+    private static final int FIELD_ERROR_FIELD = 1;
+    private static final int FIELD_ERROR_MESSAGE = 2;
+
+    public MovieProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == MoviesResponse.class || clazz == MovieResponse.class;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected AbstractRestResponse readInternal(Class<? extends AbstractRestResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf is only written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(AbstractRestResponse response, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody(), BUFFER_SIZE);
+        if (response instanceof MoviesResponse) {
+            writeMovies(output, (MoviesResponse) response);
+        } else {
+            writeMovie(output, (MovieResponse) response);
+        }
+        output.flush();
+    }
+
+    private static void writeMovies(CodedOutputStream output, MoviesResponse response) throws IOException {
+        if (response.getMovies() != null) {
+            for (Movie movie : response.getMovies()) {
+                //a nested message is length prefixed, its size is worked out before it is written
+                output.writeTag(MOVIES_MOVIES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(movieSize(movie.getId(), movie.getTitle(), movie.getCategory(), movie.getRating()));
+                writeMovieFields(output, movie.getId(), movie.getTitle(), movie.getCategory(), movie.getRating());
+            }
+        }
+        writeString(output, MOVIES_NEXT_CURSOR, response.getNextCursor());
+        writeErrors(output, MOVIES_ERRORS, response.getErrors());
+        writeString(output, MOVIES_ERROR, response.getError());
+    }
+
+    private static void writeMovie(CodedOutputStream output, MovieResponse response) throws IOException {
+        writeMovieFields(output, response.getId(), response.getTitle(), response.getCategory(), response.getRating());
+        writeErrors(output, MOVIE_RESPONSE_ERRORS, response.getErrors());
+        writeString(output, MOVIE_RESPONSE_ERROR, response.getError());
+    }
+
+    private static void writeMovieFields(CodedOutputStream output, Long id, String title, String category, Float rating) throws IOException {
+        if (id != null && id != 0) {
+            output.writeInt64(MOVIE_ID, id);
+        }
+        writeString(output, MOVIE_TITLE, title);
+        writeString(output, MOVIE_CATEGORY, category);
+        if (rating != null) {
+            output.writeFloat(MOVIE_RATING, rating);
+        }
+    }
+
+    private static int movieSize(Long id, String title, String category, Float rating) {
+        int size = 0;
+        if (id != null && id != 0) {
+            size += CodedOutputStream.computeInt64Size(MOVIE_ID, id);
+        }
+        size += stringSize(MOVIE_TITLE, title);
+        size += stringSize(MOVIE_CATEGORY, category);
+        if (rating != null) {
+            size += CodedOutputStream.computeFloatSize(MOVIE_RATING, rating);
+        }
+        return size;
+    }
+
+    //every map of errors is written as FieldError messages, one per entry
+    private static void writeErrors(CodedOutputStream output, int fieldNumber, List<Map<String, String>> errors) throws IOException {
+        if (errors == null) {
+            return;
+        }
+        for (Map<String, String> error : errors) {
+            for (Map.Entry<String, String> entry : error.entrySet()) {
+                output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(stringSize(FIELD_ERROR_FIELD, entry.getKey()) + stringSize(FIELD_ERROR_MESSAGE, entry.getValue()));
+                writeString(output, FIELD_ERROR_FIELD, entry.getKey());
+                writeString(output, FIELD_ERROR_MESSAGE, entry.getValue());
+            }
+        }
+    }
+
+    private static void writeString(CodedOutputStream output, int fieldNumber, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            output.writeString(fieldNumber, value);
+        }
+    }
+
+    private static int stringSize(int fieldNumber, String value) {
+        return value == null || value.isEmpty() ? 0 : CodedOutputStream.computeStringSize(fieldNumber, value);
+    }
+}
@@ -0,0 +1,29 @@
+package com.rhb.interview.demo.controller;
+
+import com.rhb.interview.demo.service.impl.MovieTitleIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Size and estimated heap footprint of the title search index at /actuator/moviesearch
+ */
+@Component
+@Endpoint(id = "moviesearch")
+public class MovieSearchEndpoint {
+
+    private final MovieTitleIndex movieTitleIndex;
+
+    @Autowired
+    public MovieSearchEndpoint(MovieTitleIndex movieTitleIndex) {
+        this.movieTitleIndex = movieTitleIndex;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return movieTitleIndex.statistics();
+    }
+}
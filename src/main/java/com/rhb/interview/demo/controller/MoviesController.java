@@ -1,7 +1,14 @@
 package com.rhb.interview.demo.controller;
 
+import com.rhb.interview.demo.dto.BulkOperation;
+import com.rhb.interview.demo.dto.BulkResponse;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.ImportResponse;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieFilter;
 import com.rhb.interview.demo.dto.MovieRequest;
 import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.dto.MovieStatisticsResponse;
 import com.rhb.interview.demo.dto.MoviesResponse;
 import com.rhb.interview.demo.dto.VoidResponse;
 import com.rhb.interview.demo.service.MoviesService;
@@ -11,16 +18,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping(value = "/movies")
 public class MoviesController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
 
     //Service layer
     private final MoviesService moviesService;
@@ -45,32 +61,92 @@ public class MoviesController {
         return moviesService.createMovie(request, bindingResult);
     }
 
-    @GetMapping(value = {"", "/"}, produces = {MediaType.APPLICATION_JSON_VALUE})
-    @Operation(summary = "Get a list of movies")
+    @GetMapping(value = {"", "/"}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE,
+            MovieProtobufHttpMessageConverter.APPLICATION_PROTOBUF_VALUE})
+    @Operation(summary = "Get a page of movies, optionally of one category and within a rating range. " +
+            "Pass nextCursor back as after, with the same filters and sort, to get the following page")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Movies returned",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MoviesResponse.class))}),
+            @ApiResponse(responseCode = "304", description = "No movie changed since the etag in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, limit, cursor or sort supplied",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))}),
             @ApiResponse(responseCode = "500", description = "Unknown Server Error",
                     content = @Content)})
-    public ResponseEntity<MoviesResponse> getList() {
-        return moviesService.getMovies();
+    public ResponseEntity<MoviesResponse> getList(@RequestParam(value = "category", required = false) String category,
+                                                  @RequestParam(value = "minRating", required = false) Float minRating,
+                                                  @RequestParam(value = "maxRating", required = false) Float maxRating,
+                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                  @RequestParam(value = "after", required = false) String after,
+                                                  @RequestParam(value = "sort", required = false) String sort,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return moviesService.getMovies(new MovieFilter(category, minRating, maxRating), limit, after, sort, ifNoneMatch, accept);
+    }
+
+    @GetMapping(value = {"", "/"}, produces = {MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Stream every movie in id order, one json document per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movies streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = Movie.class))})})
+    public ResponseEntity<StreamingResponseBody> streamList() {
+        return moviesService.streamMovies();
+    }
+
+    @GetMapping(value = {"/search"}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE,
+            MovieProtobufHttpMessageConverter.APPLICATION_PROTOBUF_VALUE})
+    @Operation(summary = "Search movies whose title contains q, ignoring case, best matches first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching movies returned",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Query shorter than 3 characters or invalid limit",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))}),
+            @ApiResponse(responseCode = "503", description = "Search index still being built",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))})})
+    public ResponseEntity<MoviesResponse> search(@RequestParam(value = "q", required = false) String query,
+                                                 @RequestParam(value = "limit", required = false) Integer limit) {
+        return moviesService.searchMovies(query, limit);
+    }
+
+    @GetMapping(value = {"/stats"}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Count, mean rating and half star rating histogram per category")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieStatisticsResponse.class))}),
+            @ApiResponse(responseCode = "503", description = "Statistics still being built",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieStatisticsResponse.class))})})
+    public ResponseEntity<MovieStatisticsResponse> statistics() {
+        return moviesService.getStatistics();
     }
 
-    @GetMapping(value = {"/{id}"}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @GetMapping(value = {"/{id}"}, produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE,
+            MovieProtobufHttpMessageConverter.APPLICATION_PROTOBUF_VALUE})
     @Operation(summary = "Get a movie")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Movie retrieved",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovieResponse.class))}),
+            @ApiResponse(responseCode = "304", description = "Movie unchanged since the etag in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid id supplied",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovieResponse.class))}),
             @ApiResponse(responseCode = "500", description = "Unknown Server Error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovieResponse.class))})})
-    public ResponseEntity<MovieResponse> getMovie(@PathVariable(value = "id") String id) {
-        return moviesService.getMovie(id);
+    public ResponseEntity<MovieResponse> getMovie(@PathVariable(value = "id") String id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return moviesService.getMovie(id, ifNoneMatch, accept);
     }
 
     @PutMapping(value = {"/{id}"}, consumes = {MediaType.APPLICATION_JSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE})
@@ -82,11 +158,15 @@ public class MoviesController {
             @ApiResponse(responseCode = "400", description = "Invalid id supplied",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovieResponse.class))}),
+            @ApiResponse(responseCode = "412", description = "Movie changed since the etag in If-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Unknown Server Error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovieResponse.class))})})
-    public ResponseEntity<MovieResponse> updateMovie(@PathVariable(value = "id") String id, @Valid @RequestBody MovieRequest request, BindingResult bindingResult) {
-        return moviesService.updateMovie(id, request, bindingResult);
+    public ResponseEntity<MovieResponse> updateMovie(@PathVariable(value = "id") String id,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                     @Valid @RequestBody MovieRequest request, BindingResult bindingResult) {
+        return moviesService.updateMovie(id, ifMatch, request, bindingResult);
     }
 
     @DeleteMapping(value = {"/{id}"}, produces = {MediaType.APPLICATION_JSON_VALUE})
@@ -98,11 +178,64 @@ public class MoviesController {
             @ApiResponse(responseCode = "404", description = "Movie not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovieResponse.class))}),
+            @ApiResponse(responseCode = "412", description = "Movie changed since the etag in If-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Unknown Server Error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = MovieResponse.class))})})
-    public ResponseEntity<VoidResponse> deleteMovie(@PathVariable(value = "id") String id) {
-        return moviesService.deleteMovie(id);
+    public ResponseEntity<VoidResponse> deleteMovie(@PathVariable(value = "id") String id,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return moviesService.deleteMovie(id, ifMatch);
+    }
+
+    @PostMapping(value = {"/_bulk"}, consumes = {MediaType.APPLICATION_JSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Create, update and delete movies in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Operations applied, see the status of each item",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Empty or too many operations",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Unknown Server Error",
+                    content = @Content)})
+    public ResponseEntity<BulkResponse> bulk(@RequestBody List<BulkOperation> operations) {
+        return moviesService.bulkMovies(operations);
+    }
+
+    @PostMapping(value = {"/_import"}, consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Import new movies from a utf-8 ndjson or csv body (header title,category,rating), read as it arrives")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import done, see the counts and the first rejected rows",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Body unreadable as the format, e.g. csv header without the required columns, nothing imported",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Import stopped part way, the counts tell what was imported",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResponse.class))})})
+    public ResponseEntity<ImportResponse> importMovies(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                       InputStream body) {
+        CatalogFormat format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV) ? CatalogFormat.CSV : CatalogFormat.NDJSON;
+        return moviesService.importMovies(body, format);
+    }
+
+    @GetMapping(value = {"/_export"})
+    @Operation(summary = "Export every movie in id order as ndjson or csv (header id,title,category,rating), " +
+            "gzip compressed when Accept-Encoding allows it. Pass the id of the last row received as after to resume")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movies streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = Movie.class)),
+                            @Content(mediaType = TEXT_CSV_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "Invalid format or after supplied",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = VoidResponse.class))})})
+    public ResponseEntity<StreamingResponseBody> exportMovies(@RequestParam(value = "format", required = false) String format,
+                                                              @RequestParam(value = "after", required = false) Long after,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return moviesService.exportMovies(format, after, acceptEncoding);
     }
 
 }
@@ -0,0 +1,81 @@
+package com.rhb.interview.demo.controller;
+
+import com.rhb.interview.demo.config.ReadReplicaProperties;
+import com.rhb.interview.demo.config.ReadRouting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Sends the reads of a client that wrote within movies.read-replicas.read-your-writes to the primary, so it sees
+ * its own writes before the replicas do. The client carries the end of its window in a cookie, which works across
+ * instances without any shared state. Every request that is not a GET, HEAD or OPTIONS counts as a write
+ * and runs on the primary anyway. Reads on an async thread (the streamed export) are not covered
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "movies.read-replicas", name = "enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String COOKIE = "movies-primary-until";
+
+    private final long windowMillis;
+
+    @Autowired
+    public ReadYourWritesFilter(ReadReplicaProperties properties) {
+        this.windowMillis = properties.getReadYourWrites().toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        if (windowMillis > 0 && isWrite(request.getMethod())) {
+            //set before the chain runs, the response may be committed by the time it returns
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now + windowMillis));
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        } else if (primaryUntil(request) <= now) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ReadRouting.pinPrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRouting.unpin();
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
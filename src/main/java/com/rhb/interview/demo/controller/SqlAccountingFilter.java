@@ -0,0 +1,62 @@
+package com.rhb.interview.demo.controller;
+
+import com.rhb.interview.demo.config.SqlAccounting;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the statements each request runs and the time spent in them, published per endpoint as
+ * movies.sql.statements and movies.sql.time. With movies.sql-accounting.headers the same numbers
+ * go back on the response, see SqlAccountingHeadersAdvice
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "movies.sql-accounting", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlAccountingFilter extends OncePerRequestFilter {
+    private final MeterRegistry registry;
+
+    @Autowired
+    public SqlAccountingFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlAccounting accounting = SqlAccounting.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlAccounting.stop();
+            //same method and uri tags as http.server.requests
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Tags tags = Tags.of("method", request.getMethod(), "uri", pattern == null ? "UNKNOWN" : pattern.toString());
+            DistributionSummary.builder("movies.sql.statements")
+                    .description("Statements run by a request")
+                    .baseUnit("statements")
+                    .tags(tags)
+                    .register(registry)
+                    .record(accounting.getStatements());
+            Timer.builder("movies.sql.time")
+                    .description("Time a request spent running statements")
+                    .tags(tags)
+                    .register(registry)
+                    .record(accounting.getNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.rhb.interview.demo.controller;
+
+import com.rhb.interview.demo.config.SqlAccounting;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * X-Sql-Statements and X-Sql-Time-Micros on responses when movies.sql-accounting.headers is set,
+ * added just before the body is written, when every statement of the request has run.
+ * Not meant for production, it tells callers about the database
+ */
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "movies.sql-accounting", name = "headers", havingValue = "true")
+public class SqlAccountingHeadersAdvice implements ResponseBodyAdvice<Object> {
+    public static final String STATEMENTS = "X-Sql-Statements";
+    public static final String TIME_MICROS = "X-Sql-Time-Micros";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlAccounting accounting = SqlAccounting.current();
+        if (accounting != null) {
+            response.getHeaders().set(STATEMENTS, Integer.toString(accounting.getStatements()));
+            response.getHeaders().set(TIME_MICROS, Long.toString(accounting.getNanos() / 1000));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rhb.interview.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one bulk operation, status is the http status the single item api would have answered with
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult extends AbstractRestResponse{
+    private String op;
+
+    private Long id;
+
+    private int status;
+
+    public BulkItemResult() {
+    }
+
+    public BulkItemResult(String op, Long id, int status) {
+        this.op = op;
+        this.id = id;
+        this.status = status;
+    }
+
+    public static BulkItemResult invalid(BulkOperation operation, List<Map<String, String>> errors) {
+        BulkItemResult result = new BulkItemResult(operation.getOp(), operation.getId(), 400);
+        result.setErrors(errors);
+        return result;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,41 @@
+package com.rhb.interview.demo.dto;
+
+/**
+ * One entry of a bulk request
+ * op is create, update or delete. id is required for update and delete, movie for create and update
+ */
+public class BulkOperation {
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private String op;
+
+    private Long id;
+
+    private MovieRequest movie;
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public MovieRequest getMovie() {
+        return movie;
+    }
+
+    public void setMovie(MovieRequest movie) {
+        this.movie = movie;
+    }
+}
@@ -0,0 +1,21 @@
+package com.rhb.interview.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Per item results of a bulk request, in the same order as the operations were sent
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResponse extends AbstractRestResponse{
+    private List<BulkItemResult> items;
+
+    public List<BulkItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BulkItemResult> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rhb.interview.demo.dto;
+
+import java.util.Optional;
+
+/**
+ * Formats movies are imported from and exported to, both utf-8
+ * NDJSON is one movie json document per line. CSV has a header row, an import finds the title, category and
+ * rating columns by name in any order and ignores the others, an export writes id,title,category,rating
+ */
+public enum CatalogFormat {
+    NDJSON("ndjson", "application/x-ndjson", ".ndjson", ".jsonl"),
+    CSV("csv", "text/csv", ".csv");
+
+    private final String param;
+
+    private final String mediaType;
+
+    private final String[] extensions;
+
+    CatalogFormat(String param, String mediaType, String... extensions) {
+        this.param = param;
+        this.mediaType = mediaType;
+        this.extensions = extensions;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static Optional<CatalogFormat> fromParam(String param) {
+        if (param == null || param.isEmpty()) {
+            return Optional.of(NDJSON);
+        }
+        for (CatalogFormat format : values()) {
+            if (format.param.equalsIgnoreCase(param)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static Optional<CatalogFormat> fromFileName(String fileName) {
+        String lowerCase = fileName.toLowerCase();
+        for (CatalogFormat format : values()) {
+            for (String extension : format.extensions) {
+                if (lowerCase.endsWith(extension)) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,54 @@
+package com.rhb.interview.demo.dto;
+
+import java.util.Map;
+
+public class CategoryStatistics {
+    private String category;
+
+    private long count;
+
+    //null when no movie of the category has a rating
+    private Double meanRating;
+
+    //movies per half star rating, "0.5" to "5.0"
+    private Map<String, Long> histogram;
+
+    public CategoryStatistics(String category, long count, Double meanRating, Map<String, Long> histogram) {
+        this.category = category;
+        this.count = count;
+        this.meanRating = meanRating;
+        this.histogram = histogram;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getMeanRating() {
+        return meanRating;
+    }
+
+    public void setMeanRating(Double meanRating) {
+        this.meanRating = meanRating;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+}
@@ -0,0 +1,27 @@
+package com.rhb.interview.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A row the import did not write, line is where the row starts in the input (1 based, the csv header is line 1).
+ * errors holds the validation failures, error a row that could not be parsed or that the database refused
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRejectedRow extends AbstractRestResponse {
+    private long line;
+
+    public ImportRejectedRow() {
+    }
+
+    public ImportRejectedRow(long line) {
+        this.line = line;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+}
@@ -0,0 +1,62 @@
+package com.rhb.interview.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Counts of an import, rows read is imported plus rejected.
+ * rejectedRows lists the first rejected rows only, truncated tells whether there were more
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResponse extends AbstractRestResponse {
+    private long read;
+
+    private long imported;
+
+    private long rejected;
+
+    private List<ImportRejectedRow> rejectedRows;
+
+    private Boolean truncated;
+
+    public long getRead() {
+        return read;
+    }
+
+    public void setRead(long read) {
+        this.read = read;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<ImportRejectedRow> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public void setRejectedRows(List<ImportRejectedRow> rejectedRows) {
+        this.rejectedRows = rejectedRows;
+    }
+
+    public Boolean getTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(Boolean truncated) {
+        this.truncated = truncated;
+    }
+}
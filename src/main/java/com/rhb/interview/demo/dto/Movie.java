@@ -1,5 +1,6 @@
 package com.rhb.interview.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.rhb.interview.demo.repository.entity.MoviesEntity;
 
 public class Movie {
@@ -9,13 +10,22 @@ public class Movie {
 
     private String category;
 
-    private Float rating;
+    //half stars, sent as stars through getRating
+    @JsonIgnore
+    private byte ratingHalfStars;
+
+    public Movie(Long id, String title, String category, byte ratingHalfStars) {
+        this.id = id;
+        this.title = title;
+        this.category = category;
+        this.ratingHalfStars = ratingHalfStars;
+    }
 
     public Movie(MoviesEntity moviesEntity) {
         this.id = moviesEntity.getId();
         this.title = moviesEntity.getTitle();
         this.category = moviesEntity.getCategory();
-        this.rating = moviesEntity.getRating();
+        this.ratingHalfStars = moviesEntity.getRatingHalfStars();
     }
 
     public Long getId() {
@@ -43,10 +53,18 @@ public class Movie {
     }
 
     public Float getRating() {
-        return rating;
+        return Ratings.toStars(ratingHalfStars);
     }
 
     public void setRating(Float rating) {
-        this.rating = rating;
+        this.ratingHalfStars = Ratings.ofStars(rating);
+    }
+
+    public byte getRatingHalfStars() {
+        return ratingHalfStars;
+    }
+
+    public void setRatingHalfStars(byte ratingHalfStars) {
+        this.ratingHalfStars = ratingHalfStars;
     }
 }
@@ -0,0 +1,84 @@
+package com.rhb.interview.demo.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Position of the last movie returned in a page
+ * it carries the sort it was produced for, the sort key of the last row and its id.
+ * Clients only ever see the encoded form which is an opaque url safe string
+ */
+public class MovieCursor {
+    private static final char SEPARATOR = ':';
+
+    private final MovieSort sort;
+
+    private final String key;
+
+    private final Long id;
+
+    public MovieCursor(MovieSort sort, String key, Long id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static MovieCursor of(MovieSort sort, Movie last) {
+        switch (sort) {
+            case TITLE:
+                return new MovieCursor(sort, last.getTitle(), last.getId());
+            case RATING:
+                return new MovieCursor(sort, String.valueOf(last.getRatingHalfStars()), last.getId());
+            default:
+                return new MovieCursor(sort, null, last.getId());
+        }
+    }
+
+    /**
+     * Decode a cursor previously produced by encode
+     * anything that was not produced by us (tampered or truncated) is reported as empty
+     * @param encoded
+     * @return
+     */
+    public static Optional<MovieCursor> decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            if (first < 0 || second < 0) {
+                return Optional.empty();
+            }
+            Optional<MovieSort> sort = MovieSort.fromParam(raw.substring(0, first));
+            if (sort.isEmpty()) {
+                return Optional.empty();
+            }
+            Long id = Long.valueOf(raw.substring(first + 1, second));
+            String key = raw.substring(second + 1);
+            if (sort.get() == MovieSort.RATING) {
+                Byte.parseByte(key);
+            }
+            return Optional.of(new MovieCursor(sort.get(), sort.get() == MovieSort.ID ? null : key, id));
+        } catch (IllegalArgumentException e) {
+            //covers bad base64 as well as NumberFormatException
+            return Optional.empty();
+        }
+    }
+
+    public String encode() {
+        String raw = sort.getProperty() + SEPARATOR + id + SEPARATOR + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public MovieSort getSort() {
+        return sort;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
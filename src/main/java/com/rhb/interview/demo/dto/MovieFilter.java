@@ -0,0 +1,33 @@
+package com.rhb.interview.demo.dto;
+
+/**
+ * Optional restrictions on the movie list, null fields do not filter
+ * ratings are inclusive bounds, a blank category is the same as none
+ */
+public class MovieFilter {
+    public static final MovieFilter NONE = new MovieFilter(null, null, null);
+
+    private final String category;
+
+    private final Float minRating;
+
+    private final Float maxRating;
+
+    public MovieFilter(String category, Float minRating, Float maxRating) {
+        this.category = category == null || category.isEmpty() ? null : category;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Float getMinRating() {
+        return minRating;
+    }
+
+    public Float getMaxRating() {
+        return maxRating;
+    }
+}
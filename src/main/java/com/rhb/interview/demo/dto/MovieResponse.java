@@ -1,5 +1,6 @@
 package com.rhb.interview.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.rhb.interview.demo.repository.entity.MoviesEntity;
 
@@ -11,16 +12,32 @@ public class MovieResponse extends AbstractRestResponse{
 
     private String category;
 
-    private Float rating;
+    //half stars, sent as stars through getRating
+    @JsonIgnore
+    private byte ratingHalfStars;
+
+    //sent as the etag header rather than in the body
+    @JsonIgnore
+    private long version;
 
     public MovieResponse() {
     }
 
+    //projection constructor, see MoviesRepository.findResponseById
+    public MovieResponse(Long id, String title, String category, byte ratingHalfStars, long version) {
+        this.id = id;
+        this.title = title;
+        this.category = category;
+        this.ratingHalfStars = ratingHalfStars;
+        this.version = version;
+    }
+
     public MovieResponse(MoviesEntity moviesEntity) {
         this.id = moviesEntity.getId();
         this.title = moviesEntity.getTitle();
         this.category = moviesEntity.getCategory();
-        this.rating = moviesEntity.getRating();
+        this.ratingHalfStars = moviesEntity.getRatingHalfStars();
+        this.version = moviesEntity.getVersion();
     }
 
 
@@ -49,10 +66,26 @@ public class MovieResponse extends AbstractRestResponse{
     }
 
     public Float getRating() {
-        return rating;
+        return Ratings.toStars(ratingHalfStars);
     }
 
     public void setRating(Float rating) {
-        this.rating = rating;
+        this.ratingHalfStars = Ratings.ofStars(rating);
+    }
+
+    public byte getRatingHalfStars() {
+        return ratingHalfStars;
+    }
+
+    public void setRatingHalfStars(byte ratingHalfStars) {
+        this.ratingHalfStars = ratingHalfStars;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
     }
 }
@@ -0,0 +1,56 @@
+package com.rhb.interview.demo.dto;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * Sort keys supported by the movie list
+ * every sort is ascending and uses id as the tie breaker so the ordering is total,
+ * which is what allows keyset (cursor) pagination to seek instead of using offset
+ */
+public enum MovieSort {
+    ID("id"),
+    TITLE("title"),
+    RATING("rating");
+
+    private final String property;
+
+    MovieSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * The order the database lists movies in for this sort, for merging lists read from several databases.
+     * Titles compare as java strings do, which is h2's order and mysql's with the binary collation the title column
+     * is given there (TitleCollation). They still differ on trailing spaces, which mysql ignores, and on characters
+     * outside the basic multilingual plane
+     * @return ascending by the sort's property, then by id
+     */
+    public Comparator<Movie> comparator() {
+        Comparator<Movie> byId = Comparator.comparing(Movie::getId);
+        switch (this) {
+            case TITLE:
+                return Comparator.comparing(Movie::getTitle, Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(byId);
+            case RATING:
+                return Comparator.comparing(Movie::getRatingHalfStars).thenComparing(byId);
+            default:
+                return byId;
+        }
+    }
+
+    public static Optional<MovieSort> fromParam(String param) {
+        if (param == null || param.isEmpty()) {
+            return Optional.of(ID);
+        }
+        for (MovieSort sort : values()) {
+            if (sort.property.equalsIgnoreCase(param)) {
+                return Optional.of(sort);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,29 @@
+package com.rhb.interview.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieStatisticsResponse extends AbstractRestResponse{
+    private Long movies;
+
+    //ordered by category name
+    private List<CategoryStatistics> categories;
+
+    public Long getMovies() {
+        return movies;
+    }
+
+    public void setMovies(Long movies) {
+        this.movies = movies;
+    }
+
+    public List<CategoryStatistics> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryStatistics> categories) {
+        this.categories = categories;
+    }
+}
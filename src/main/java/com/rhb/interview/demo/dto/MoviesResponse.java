@@ -8,6 +8,9 @@ import java.util.List;
 public class MoviesResponse extends AbstractRestResponse{
     private List<Movie> movies;
 
+    //cursor to pass as after to get the next page, absent on the last page
+    private String nextCursor;
+
     public List<Movie> getMovies() {
         return movies;
     }
@@ -15,4 +18,12 @@ public class MoviesResponse extends AbstractRestResponse{
     public void setMovies(List<Movie> movies) {
         this.movies = movies;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,99 @@
+package com.rhb.interview.demo.dto;
+
+/**
+ * Ratings are half stars from 0.5 to 5 and are carried around as a byte counting half stars, 1 to 10
+ * the api still speaks stars, these convert at the edges without allocating
+ */
+public final class Ratings {
+    //no rating, also what parse returns for anything that is not a valid rating
+    public static final byte NONE = 0;
+    public static final byte MIN_HALF_STARS = 1;
+    public static final byte MAX_HALF_STARS = 10;
+    //longer input is not a rating, also bounds the work done on it
+    private static final int MAX_LENGTH = 16;
+
+    //boxed stars for every half star value so converting back for json allocates nothing
+    private static final Float[] STARS = new Float[MAX_HALF_STARS + 1];
+
+    static {
+        for (int halfStars = MIN_HALF_STARS; halfStars <= MAX_HALF_STARS; halfStars++) {
+            STARS[halfStars] = halfStars / 2f;
+        }
+    }
+
+    private Ratings() {
+    }
+
+    /**
+     * Half stars of a rating written in stars, e.g. "4.5", "4", "4.0" or ".5"
+     * surrounding whitespace and trailing zeros are allowed, nothing else is
+     * @param text
+     * @return 1 to 10, NONE when the text is not a half star from 0.5 to 5
+     */
+    public static byte parse(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end == start || end - start > MAX_LENGTH) {
+            return NONE;
+        }
+
+        int at = start;
+        int stars = 0;
+        boolean digits = false;
+        while (at < end && text.charAt(at) >= '0' && text.charAt(at) <= '9') {
+            stars = stars * 10 + text.charAt(at++) - '0';
+            if (stars > 5) {
+                return NONE;
+            }
+            digits = true;
+        }
+        int half = 0;
+        if (at < end && text.charAt(at) == '.') {
+            at++;
+            if (at < end && (text.charAt(at) == '5' || text.charAt(at) == '0')) {
+                half = text.charAt(at++) == '5' ? 1 : 0;
+                digits = true;
+            }
+            while (at < end && text.charAt(at) == '0') {
+                at++;
+            }
+        }
+        int halfStars = stars * 2 + half;
+        if (!digits || at != end || halfStars < MIN_HALF_STARS || halfStars > MAX_HALF_STARS) {
+            return NONE;
+        }
+        return (byte) halfStars;
+    }
+
+    /**
+     * @param stars
+     * @return half stars, NONE when null or not a half star from 0.5 to 5
+     */
+    public static byte ofStars(Float stars) {
+        if (stars == null) {
+            return NONE;
+        }
+        float halfStars = stars * 2;
+        if (halfStars != (int) halfStars || halfStars < MIN_HALF_STARS || halfStars > MAX_HALF_STARS) {
+            return NONE;
+        }
+        return (byte) halfStars;
+    }
+
+    /**
+     * @param halfStars
+     * @return the rating in stars, null for NONE or anything out of range
+     */
+    public static Float toStars(byte halfStars) {
+        return halfStars < MIN_HALF_STARS || halfStars > MAX_HALF_STARS ? null : STARS[halfStars];
+    }
+}
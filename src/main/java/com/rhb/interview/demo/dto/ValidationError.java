@@ -0,0 +1,83 @@
+package com.rhb.interview.demo.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One field error, rendered in AbstractRestResponse.errors as {"field": "message"}
+ * immutable and shared between requests, fixed errors are constants and the rest are interned by of.
+ * The rendered form is built once so reporting a known error allocates nothing
+ */
+public final class ValidationError {
+    //messages come from annotations and constants, the bound only guards against unexpected variety
+    private static final int MAX_INTERNED = 1024;
+    private static final ConcurrentMap<String, ConcurrentMap<String, ValidationError>> INTERNED = new ConcurrentHashMap<>();
+    private static final AtomicInteger interned = new AtomicInteger();
+
+    private final String field;
+
+    private final String message;
+
+    private final List<Map<String, String>> errors;
+
+    private final ValidationResult result;
+
+    private ValidationError(String field, String message) {
+        this.field = field;
+        this.message = message;
+        this.errors = Collections.singletonList(Collections.singletonMap(field, message));
+        this.result = new ValidationResult(errors);
+    }
+
+    public static ValidationError of(String field, String message) {
+        if (field == null || message == null) {
+            return new ValidationError(field, message);
+        }
+        ConcurrentMap<String, ValidationError> byMessage = INTERNED.get(field);
+        ValidationError error = byMessage == null ? null : byMessage.get(message);
+        if (error != null) {
+            return error;
+        }
+        if (interned.get() >= MAX_INTERNED) {
+            return new ValidationError(field, message);
+        }
+        return INTERNED.computeIfAbsent(field, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(message, key -> {
+                    interned.incrementAndGet();
+                    return new ValidationError(field, key);
+                });
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the rendered single entry map of this error
+     */
+    public Map<String, String> asMap() {
+        return errors.get(0);
+    }
+
+    /**
+     * @return this error alone in the errors shape, unmodifiable
+     */
+    public List<Map<String, String>> toErrors() {
+        return errors;
+    }
+
+    /**
+     * @return a failed result holding only this error
+     */
+    public ValidationResult asResult() {
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package com.rhb.interview.demo.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of validating a request, collected instead of thrown
+ * VALID and the single error results are shared instances, only a request failing on several fields gets
+ * a result of its own
+ */
+public final class ValidationResult {
+    public static final ValidationResult VALID = new ValidationResult(Collections.emptyList());
+
+    private final List<Map<String, String>> errors;
+
+    ValidationResult(List<Map<String, String>> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * @param errors
+     * @return VALID when there are none
+     */
+    public static ValidationResult of(List<ValidationError> errors) {
+        if (errors.isEmpty()) {
+            return VALID;
+        }
+        if (errors.size() == 1) {
+            return errors.get(0).asResult();
+        }
+        List<Map<String, String>> rendered = new ArrayList<>(errors.size());
+        for (ValidationError error : errors) {
+            rendered.add(error.asMap());
+        }
+        return new ValidationResult(Collections.unmodifiableList(rendered));
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @return the errors in the shape of AbstractRestResponse.errors, unmodifiable
+     */
+    public List<Map<String, String>> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,33 @@
+package com.rhb.interview.demo.repository.entity;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ids from lo up to (not including) hi reserved from the database in one go, handed out in order
+ * to any number of threads by a single atomic increment, no lock is taken
+ */
+public final class IdBlock {
+    //what next returns once every id of the block is taken, ids start at 1
+    public static final long EXHAUSTED = -1;
+
+    //a block with nothing in it, for before the first one is reserved
+    public static final IdBlock EMPTY = new IdBlock(1, 1);
+
+    private final long hi;
+
+    private final AtomicLong next;
+
+    public IdBlock(long lo, long hi) {
+        this.hi = hi;
+        this.next = new AtomicLong(lo);
+    }
+
+    /**
+     * @return the next free id of the block or EXHAUSTED
+     */
+    public long next() {
+        //past the end the counter keeps going up, harmless as nothing reads it again
+        long id = next.getAndIncrement();
+        return id < hi ? id : EXHAUSTED;
+    }
+}
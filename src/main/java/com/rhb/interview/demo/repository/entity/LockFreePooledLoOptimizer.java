@@ -0,0 +1,79 @@
+package com.rhb.interview.demo.repository.entity;
+
+import org.hibernate.HibernateException;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+
+/**
+ * Pooled-lo like hibernate's PooledLoOptimizer: a value read from the sequence (or table) is the first id of a block
+ * of incrementSize ids, the database moves on by incrementSize every read. Ids of the current block are taken
+ * with an atomic increment instead of under the optimizer's lock, only the thread that finds the block used up
+ * locks to read the next one while the others wait for it. No multi tenancy, every tenant would share the blocks
+ */
+public class LockFreePooledLoOptimizer implements Optimizer {
+    private final Class returnClass;
+
+    private final int incrementSize;
+
+    private volatile IdBlock block = IdBlock.EMPTY;
+
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    public LockFreePooledLoOptimizer(Class returnClass, int incrementSize) {
+        if (incrementSize < 1) {
+            throw new HibernateException("increment size cannot be less than 1");
+        }
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        while (true) {
+            IdBlock current = block;
+            long id = current.next();
+            if (id != IdBlock.EXHAUSTED) {
+                return value(id);
+            }
+            reserve(current, callback);
+        }
+    }
+
+    private synchronized void reserve(IdBlock exhausted, AccessCallback callback) {
+        //another thread got here first and already reserved the next block
+        if (block != exhausted) {
+            return;
+        }
+        IntegralDataTypeHolder source = callback.getNextValue();
+        long lo = source.makeValue().longValue();
+        lastSourceValue = source;
+        //a sequence starting below 1 (hsqldb) gives up the ids before 1
+        block = new IdBlock(Math.max(lo, 1), lo + incrementSize);
+    }
+
+    private Serializable value(long id) {
+        if (returnClass == Long.class) {
+            return id;
+        }
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass).initialize(id).makeValue();
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+}
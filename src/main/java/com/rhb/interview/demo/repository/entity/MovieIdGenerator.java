@@ -0,0 +1,51 @@
+package com.rhb.interview.demo.repository.entity;
+
+import com.rhb.interview.demo.config.ShardRouting;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * The sequence generator configured as pooled-lo, so hibernate builds the sequence (or on mysql the table) with
+ * the block size as its increment. Every instance sharing the database reserves its blocks from the same sequence,
+ * a block is never handed to two instances. Against an existing database sequence incrementing by another size
+ * hibernate refuses to start, as the blocks would overlap. Ids are then generated by a LockFreePooledLoOptimizer
+ * instead of the synchronized PooledLoOptimizer.
+ * When movies are sharded every shard has a sequence of its own and blocks of its own, the shard ShardRouting has the
+ * thread on is put in the id
+ */
+public class MovieIdGenerator extends SequenceStyleGenerator {
+    //by shard, the sequence read for a block is the one of the shard the session's connection is on
+    private Optimizer[] optimizers;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        params.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+        optimizers = new Optimizer[ShardRouting.MAX_SHARDS];
+        for (int i = 0; i < optimizers.length; i++) {
+            optimizers[i] = new LockFreePooledLoOptimizer(type.getReturnedClass(), super.getOptimizer().getIncrementSize());
+        }
+    }
+
+    @Override
+    public Optimizer getOptimizer() {
+        return optimizers[0];
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        int shard = ShardRouting.current();
+        Serializable id = optimizers[shard].generate(getDatabaseStructure().buildCallback(session));
+        if (shard == 0) {
+            return id;
+        }
+        return ShardRouting.idOn(shard, ((Number) id).longValue());
+    }
+}
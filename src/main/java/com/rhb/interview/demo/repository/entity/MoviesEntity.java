@@ -1,23 +1,55 @@
 package com.rhb.interview.demo.repository.entity;
 
 import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.Ratings;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
-
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * The (sort key, id) indexes back keyset pagination of the movie list, id is part of the index
+ * so the tie breaker of the seek predicate is answered from the index as well.
+ * The category indexes back the list filters, equality on category first then the rating range
+ * Ratings are stored as a tinyint of half stars, see Ratings
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_movies_title_id", columnList = "title, id"),
+        @Index(name = "idx_movies_rating_id", columnList = "rating, id"),
+        @Index(name = "idx_movies_category_rating_id", columnList = "category, rating, id"),
+        @Index(name = "idx_movies_category_id", columnList = "category, id")
+})
 public class MoviesEntity {
+    //ids are reserved from hibernate_sequence this many at a time, see MovieIdGenerator. The sequence (a table on mysql)
+    //moves on by the same amount per read, changing it means altering hibernate_sequence too
+    public static final int ID_BLOCK_SIZE = 1000;
+
     @Id
-    @GeneratedValue(strategy= GenerationType.AUTO)
+    @GeneratedValue(generator = "movie_id")
+    @GenericGenerator(name = "movie_id", strategy = "com.rhb.interview.demo.repository.entity.MovieIdGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hibernate_sequence"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_BLOCK_SIZE)})
     private Long id;
 
     private String title;
 
     private String category;
 
-    private Float rating;
+    //half stars 1 to 10, Ratings.NONE when there is no rating
+    @Column(name = "rating", nullable = false)
+    private byte ratingHalfStars;
+
+    //optimistic lock and etag of the movie, primitive so spring data still decides new vs existing by id
+    @Version
+    private long version;
 
     public MoviesEntity() {
     }
@@ -25,7 +57,7 @@ public class MoviesEntity {
     public MoviesEntity(MovieRequest movieRequest) {
         this.title = movieRequest.getTitle();
         this.category = movieRequest.getCategory();
-        this.rating = Float.valueOf(movieRequest.getRating());
+        this.ratingHalfStars = Ratings.parse(movieRequest.getRating());
     }
 
     public Long getId() {
@@ -52,11 +84,28 @@ public class MoviesEntity {
         this.category = category;
     }
 
+    public byte getRatingHalfStars() {
+        return ratingHalfStars;
+    }
+
+    public void setRatingHalfStars(byte ratingHalfStars) {
+        this.ratingHalfStars = ratingHalfStars;
+    }
+
+    //in stars, for callers that do not deal in half stars
     public Float getRating() {
-        return rating;
+        return Ratings.toStars(ratingHalfStars);
     }
 
     public void setRating(Float rating) {
-        this.rating = rating;
+        this.ratingHalfStars = Ratings.ofStars(rating);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
     }
 }
@@ -0,0 +1,44 @@
+package com.rhb.interview.demo.repository.entity;
+
+import org.hibernate.boot.model.relational.AuxiliaryDatabaseObject;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+
+/**
+ * Gives the title column mysql's binary collation when hibernate creates the schema, see MovieSort.comparator.
+ * The default collations ignore case, the movie list would be in another order than the one its pages are merged in.
+ * JPA has no collation of its own and h2 does not take one in a column definition, hence a statement run after
+ * the tables are created, on mysql only. Registered by db/title-collation.hbm.xml (spring.jpa.mapping-resources),
+ * an existing database gets it from db/migration/003_title_binary_collation.sql
+ */
+public class TitleCollation implements AuxiliaryDatabaseObject {
+    private static final String[] CREATE = {"alter table movies_entity modify title varchar(255) binary"};
+
+    //the table drop takes the column with it
+    private static final String[] DROP = {};
+
+    @Override
+    public String getExportIdentifier() {
+        return "movies_entity.title collation";
+    }
+
+    @Override
+    public boolean appliesToDialect(Dialect dialect) {
+        return dialect instanceof MySQLDialect;
+    }
+
+    @Override
+    public boolean beforeTablesOnCreation() {
+        return false;
+    }
+
+    @Override
+    public String[] sqlCreateStrings(Dialect dialect) {
+        return CREATE.clone();
+    }
+
+    @Override
+    public String[] sqlDropStrings(Dialect dialect) {
+        return DROP;
+    }
+}
@@ -1,9 +1,89 @@
 package com.rhb.interview.demo.repository.repository;
 
+import com.rhb.interview.demo.dto.MovieResponse;
 import com.rhb.interview.demo.repository.entity.MoviesEntity;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
-public interface MoviesRepository extends CrudRepository<MoviesEntity,Long> {
+public interface MoviesRepository extends JpaRepository<MoviesEntity,Long>, MoviesRepositoryCustom {
+
+    //rows pulled per round trip while streaming, mysql needs useCursorFetch=true to honour it
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * A movie read straight into its response, no entity is loaded or managed
+     * @param id
+     * @return
+     */
+    @Query("select new com.rhb.interview.demo.dto.MovieResponse(m.id, m.title, m.category, m.ratingHalfStars, m.version) " +
+            "from MoviesEntity m where m.id = :id")
+    Optional<MovieResponse> findResponseById(@Param("id") Long id);
+
+    /**
+     * Every movie in id order as a forward only stream
+     * must be consumed inside a transaction and closed, the caller is expected to clear the
+     * persistence context as it goes so memory stays flat regardless of the table size
+     * @return
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select m from MoviesEntity m order by m.id")
+    Stream<MoviesEntity> streamAllOrderById();
+
+    /**
+     * Overwrite a movie with a single update statement, no select beforehand
+     * @return rows updated, 0 when there is no movie with the id
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update MoviesEntity m set m.title = :title, m.category = :category, m.ratingHalfStars = :rating, m.version = m.version + 1 " +
+            "where m.id = :id")
+    int updateById(@Param("id") Long id, @Param("title") String title, @Param("category") String category,
+                   @Param("rating") byte ratingHalfStars);
+
+    /**
+     * Same as updateById but only when the movie is still at the given version (If-Match)
+     * @return rows updated, 0 when the movie does not exist or has moved on
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update MoviesEntity m set m.title = :title, m.category = :category, m.ratingHalfStars = :rating, m.version = m.version + 1 " +
+            "where m.id = :id and m.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("version") long version, @Param("title") String title,
+                             @Param("category") String category, @Param("rating") byte ratingHalfStars);
+
+    /**
+     * The version of a movie, after updateById inside the same transaction it is the version that update wrote
+     * @return empty when there is no movie with the id
+     */
+    @Query("select m.version from MoviesEntity m where m.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Delete a movie with a single delete statement, unlike deleteById it does not load the entity first
+     * @return rows deleted, 0 when there is no movie with the id
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from MoviesEntity m where m.id = :id")
+    int deleteMovieById(@Param("id") Long id);
+
+    /**
+     * Same as deleteMovieById but only when the movie is still at the given version (If-Match)
+     * @return rows deleted, 0 when the movie does not exist or has moved on
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from MoviesEntity m where m.id = :id and m.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") long version);
 }
@@ -0,0 +1,47 @@
+package com.rhb.interview.demo.repository.repository;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieCursor;
+import com.rhb.interview.demo.dto.MovieFilter;
+import com.rhb.interview.demo.dto.MovieSort;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Queries that cannot be expressed as derived or annotated spring data queries
+ */
+public interface MoviesRepositoryCustom {
+
+    /**
+     * Keyset page of movies
+     * rows strictly after the cursor in (sort key, id) order, the database seeks straight to the cursor
+     * through the matching index so every page costs the same no matter how deep it is.
+     * Filters become part of the where clause, category equality leads the (category, rating, id) and
+     * (category, id) indexes and a rating range alone uses (rating, id)
+     * Rows are read straight into Movie, no entity is loaded or managed
+     * @param filter
+     * @param sort
+     * @param after cursor of the last row of the previous page, null for the first page
+     * @param limit
+     * @return
+     */
+    List<Movie> findPage(MovieFilter filter, MovieSort sort, MovieCursor after, int limit);
+
+    /**
+     * Insert new movies with one jdbc batch
+     * ids come from the entity's own id generator and are set on the given movies, no entity is created or
+     * managed so the persistence context stays empty however many rows go through. Must run in a transaction
+     * @param movies without ids
+     */
+    void insertAll(List<Movie> movies);
+
+    /**
+     * Every movie with an id above afterId in id order, read through a forward only jdbc cursor
+     * STREAM_FETCH_SIZE rows per round trip. Rows are handed over one at a time in the same Movie instance,
+     * the consumer must not keep it. Must run in a transaction, the cursor holds its connection until the last row
+     * @param afterId
+     * @param consumer
+     */
+    void forEachAfter(long afterId, Consumer<Movie> consumer);
+}
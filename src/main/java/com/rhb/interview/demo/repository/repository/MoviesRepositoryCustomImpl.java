@@ -0,0 +1,137 @@
+package com.rhb.interview.demo.repository.repository;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieCursor;
+import com.rhb.interview.demo.dto.MovieFilter;
+import com.rhb.interview.demo.dto.MovieSort;
+import com.rhb.interview.demo.dto.Ratings;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class MoviesRepositoryCustomImpl implements MoviesRepositoryCustom {
+    private static final String SELECT_AFTER = "select id, title, category, rating from movies_entity where id > ? order by id";
+    private static final String INSERT = "insert into movies_entity (id, title, category, rating, version) values (?, ?, ?, ?, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Movie> findPage(MovieFilter filter, MovieSort sort, MovieCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Movie> query = cb.createQuery(Movie.class);
+        Root<MoviesEntity> root = query.from(MoviesEntity.class);
+        Path<Long> id = root.get("id");
+        Path<String> title = root.get("title");
+        Path<String> category = root.get("category");
+        Path<Byte> rating = root.get("ratingHalfStars");
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.getCategory() != null) {
+            where.add(cb.equal(category, filter.getCategory()));
+        }
+        //bounds in stars become the half stars they include
+        if (filter.getMinRating() != null) {
+            where.add(cb.greaterThanOrEqualTo(rating, (byte) Math.ceil(filter.getMinRating() * 2)));
+        }
+        if (filter.getMaxRating() != null) {
+            where.add(cb.lessThanOrEqualTo(rating, (byte) Math.floor(filter.getMaxRating() * 2)));
+        }
+
+        switch (sort) {
+            case TITLE: {
+                if (after != null) {
+                    where.add(seek(cb, title, after.getKey(), id, after.getId()));
+                }
+                query.orderBy(cb.asc(title), cb.asc(id));
+                break;
+            }
+            case RATING: {
+                if (after != null) {
+                    where.add(seek(cb, rating, Byte.valueOf(after.getKey()), id, after.getId()));
+                }
+                query.orderBy(cb.asc(rating), cb.asc(id));
+                break;
+            }
+            default: {
+                if (after != null) {
+                    where.add(cb.greaterThan(id, after.getId()));
+                }
+                query.orderBy(cb.asc(id));
+            }
+        }
+        query.select(cb.construct(Movie.class, id, title, category, rating));
+        query.where(where.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * (key, id) > (afterKey, afterId) written out as key > afterKey or (key = afterKey and id > afterId)
+     * row value comparison is not portable across mysql and h2 through jpql so it is expanded by hand,
+     * both databases still range scan the (key, id) index with this form
+     */
+    private static <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb, Path<T> key, T afterKey, Path<Long> id, Long afterId) {
+        return cb.or(
+                cb.greaterThan(key, afterKey),
+                cb.and(cb.equal(key, afterKey), cb.greaterThan(id, afterId)));
+    }
+
+    @Override
+    public void insertAll(List<Movie> movies) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel()
+                .entityPersister(MoviesEntity.class).getIdentifierGenerator();
+        for (Movie movie : movies) {
+            movie.setId((Long) generator.generate(session, null));
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (Movie movie : movies) {
+                    insert.setLong(1, movie.getId());
+                    insert.setString(2, movie.getTitle());
+                    insert.setString(3, movie.getCategory());
+                    insert.setByte(4, movie.getRatingHalfStars());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public void forEachAfter(long afterId, Consumer<Movie> consumer) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(SELECT_AFTER, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(MoviesRepository.STREAM_FETCH_SIZE);
+                select.setLong(1, afterId);
+                try (ResultSet rows = select.executeQuery()) {
+                    Movie movie = new Movie(null, null, null, Ratings.NONE);
+                    while (rows.next()) {
+                        movie.setId(rows.getLong(1));
+                        movie.setTitle(rows.getString(2));
+                        movie.setCategory(rows.getString(3));
+                        movie.setRatingHalfStars(rows.getByte(4));
+                        consumer.accept(movie);
+                    }
+                }
+            }
+        });
+    }
+}
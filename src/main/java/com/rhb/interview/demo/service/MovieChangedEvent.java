@@ -0,0 +1,70 @@
+package com.rhb.interview.demo.service;
+
+import com.rhb.interview.demo.dto.Movie;
+
+/**
+ * Published by the service for every movie it creates, updates or deletes
+ * listeners that keep derived state in memory should use @TransactionalEventListener so they
+ * only see changes that actually committed.
+ * Such listeners run on each writer's thread after its own commit, two changes of the same movie can reach them
+ * in the other order. The version tells them apart: the row version the change left the movie at, every insert
+ * writes version 0 and every update adds one. A delete is DELETED, newer than anything, ids are never reused
+ */
+public class MovieChangedEvent {
+    public static final long DELETED = Long.MAX_VALUE;
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+
+    private final Long id;
+
+    //state after the change, null for deletes
+    private final Movie movie;
+
+    private final long version;
+
+    private MovieChangedEvent(Type type, Long id, Movie movie, long version) {
+        this.type = type;
+        this.id = id;
+        this.movie = movie;
+        this.version = version;
+    }
+
+    public static MovieChangedEvent created(Movie movie) {
+        return new MovieChangedEvent(Type.CREATED, movie.getId(), movie, 0);
+    }
+
+    /**
+     * @param movie
+     * @param version the movie's version once the update committed
+     * @return
+     */
+    public static MovieChangedEvent updated(Movie movie, long version) {
+        return new MovieChangedEvent(Type.UPDATED, movie.getId(), movie, version);
+    }
+
+    public static MovieChangedEvent deleted(Long id) {
+        return new MovieChangedEvent(Type.DELETED, id, null, DELETED);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Movie getMovie() {
+        return movie;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
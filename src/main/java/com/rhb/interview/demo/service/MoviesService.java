@@ -1,16 +1,32 @@
 package com.rhb.interview.demo.service;
 
+import com.rhb.interview.demo.dto.BulkOperation;
+import com.rhb.interview.demo.dto.BulkResponse;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.ImportResponse;
+import com.rhb.interview.demo.dto.MovieFilter;
 import com.rhb.interview.demo.dto.MovieRequest;
 import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.dto.MovieStatisticsResponse;
 import com.rhb.interview.demo.dto.MoviesResponse;
 import com.rhb.interview.demo.dto.VoidResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
 
 public interface MoviesService {
     ResponseEntity<VoidResponse> createMovie(MovieRequest movieRequest, BindingResult bindingResult);
-    ResponseEntity<MoviesResponse> getMovies();
-    ResponseEntity<MovieResponse> getMovie(String id);
-    ResponseEntity<MovieResponse> updateMovie(String id, MovieRequest movieRequest, BindingResult bindingResult);
-    ResponseEntity<VoidResponse> deleteMovie(String id);
+    ResponseEntity<MoviesResponse> getMovies(MovieFilter filter, Integer limit, String after, String sort, String ifNoneMatch, String accept);
+    ResponseEntity<StreamingResponseBody> streamMovies();
+    ResponseEntity<MoviesResponse> searchMovies(String query, Integer limit);
+    ResponseEntity<MovieStatisticsResponse> getStatistics();
+    ResponseEntity<MovieResponse> getMovie(String id, String ifNoneMatch, String accept);
+    ResponseEntity<MovieResponse> updateMovie(String id, String ifMatch, MovieRequest movieRequest, BindingResult bindingResult);
+    ResponseEntity<VoidResponse> deleteMovie(String id, String ifMatch);
+    ResponseEntity<BulkResponse> bulkMovies(List<BulkOperation> operations);
+    ResponseEntity<ImportResponse> importMovies(InputStream body, CatalogFormat format);
+    ResponseEntity<StreamingResponseBody> exportMovies(String format, Long after, String acceptEncoding);
 }
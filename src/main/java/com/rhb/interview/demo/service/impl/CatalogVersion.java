@@ -0,0 +1,57 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.rhb.interview.demo.config.ReadReplicaProperties;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the movie collection as a whole, moves on every committed create, update or delete
+ * the tag is prefixed with the start time of this instance so a restart never reuses a tag. It only
+ * sees writes made through this instance's service, running several instances against one database
+ * would need the version to live in the database instead
+ */
+@Component
+public class CatalogVersion {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong version = new AtomicLong();
+
+    //how long a read replica may lag behind a change, nothing without replicas
+    private final long replicaLagNanos;
+
+    private volatile long changedAt = System.nanoTime();
+
+    @Autowired
+    public CatalogVersion(ReadReplicaProperties readReplicas) {
+        this.replicaLagNanos = readReplicas.isEnabled() ? readReplicas.getReadYourWrites().toNanos() : 0;
+    }
+
+    /**
+     * Tag of the list as it is right now
+     * read it before querying, a write committing in between then only costs the client a full response
+     * instead of labelling stale rows with the newer tag
+     * @return
+     */
+    public String etag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    /**
+     * Whether every read replica has caught up with the last change, taking movies.read-replicas.read-your-writes
+     * as the most a replica lags. Until then a list read from a replica may be older than the tag and goes out without it
+     * @return
+     */
+    public boolean isSettled() {
+        return System.nanoTime() - changedAt >= replicaLagNanos;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        version.incrementAndGet();
+        changedAt = System.nanoTime();
+    }
+}
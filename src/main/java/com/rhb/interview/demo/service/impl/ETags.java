@@ -0,0 +1,117 @@
+package com.rhb.interview.demo.service.impl;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entity tag helpers for conditional requests
+ * a movie's tag is its @Version quoted, the list tag comes from CatalogVersion.
+ * The tags are strong, so every encoding a response can be sent in gets a tag of its own: json as is,
+ * the others with the encoding appended, e.g. "5-cbor"
+ */
+public final class ETags {
+    private static final String ANY = "*";
+
+    //in the order the controller produces them, json first as the default
+    private static final List<MediaType> ENCODINGS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            MediaType.parseMediaType("application/x-jackson-smile"), MediaType.parseMediaType("application/x-protobuf"));
+
+    private static final List<String> SUFFIXES = List.of("", "-cbor", "-smile", "-protobuf");
+
+    private ETags() {
+    }
+
+    public static String ofVersion(long version) {
+        return "\"" + version + "\"";
+    }
+
+    public static String ofVersion(long version, String accept) {
+        return forEncoding(ofVersion(version), accept);
+    }
+
+    /**
+     * The tag of the representation Accept gets, picked the way spring negotiates between the encodings
+     * @param etag tag of the json representation
+     * @param accept value of Accept, may be null
+     * @return
+     */
+    public static String forEncoding(String etag, String accept) {
+        String suffix = SUFFIXES.get(encodingOf(accept));
+        return suffix.isEmpty() ? etag : etag.substring(0, etag.length() - 1) + suffix + "\"";
+    }
+
+    /**
+     * If-None-Match check, uses weak comparison as rfc 7232 asks for
+     * @param header value of If-None-Match, may be null or a comma separated list
+     * @param etag current tag of the resource
+     * @return
+     */
+    public static boolean noneMatchFails(String header, String etag) {
+        if (header == null || header.isEmpty()) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(ANY) || stripWeak(tag).equals(stripWeak(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version asserted by an If-Match header
+     * @param header value of If-Match, a single strong tag produced by ofVersion
+     * @return the version, -1 for * (any version), null when the header is not a tag we could have produced
+     */
+    public static Long versionOf(String header) {
+        String tag = header.trim();
+        if (tag.equals(ANY)) {
+            return -1L;
+        }
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        //every encoding of a version stands for the same movie
+        String value = tag.substring(1, tag.length() - 1);
+        for (int i = 1; i < SUFFIXES.size(); i++) {
+            if (value.endsWith(SUFFIXES.get(i))) {
+                value = value.substring(0, value.length() - SUFFIXES.get(i).length());
+                break;
+            }
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //the most specific and preferred accepted encoding, json when Accept names none of them or is not readable
+    private static int encodingOf(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return 0;
+        }
+        List<MediaType> compatible = new ArrayList<>();
+        try {
+            for (MediaType accepted : MediaType.parseMediaTypes(accept)) {
+                for (MediaType encoding : ENCODINGS) {
+                    if (accepted.isCompatibleWith(encoding)) {
+                        compatible.add(encoding.copyQualityValue(accepted));
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return 0;
+        }
+        MediaType.sortBySpecificityAndQuality(compatible);
+        return compatible.isEmpty() ? 0 : ENCODINGS.indexOf(new MediaType(compatible.get(0).getType(), compatible.get(0).getSubtype()));
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
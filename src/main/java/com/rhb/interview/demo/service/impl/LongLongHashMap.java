@@ -0,0 +1,121 @@
+package com.rhb.interview.demo.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from long keys to non negative long values, no boxing
+ * linear probing with backward shift deletion so removals leave no tombstones. Not thread safe
+ */
+final class LongLongHashMap {
+    static final long MISSING = -1;
+
+    private long[] keys;
+
+    //MISSING marks a free slot
+    private long[] values;
+
+    private int mask;
+
+    private int size;
+
+    LongLongHashMap(int expectedSize) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+    }
+
+    long get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == MISSING) {
+                return MISSING;
+            }
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+    }
+
+    /**
+     * @return the value that was mapped, MISSING if there was none
+     */
+    long put(long key, long value) {
+        if ((size + 1) * 2 > values.length) {
+            grow();
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == MISSING) {
+                keys[slot] = key;
+                values[slot] = value;
+                size++;
+                return MISSING;
+            }
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * @return the value that was mapped, MISSING if there was none
+     */
+    long remove(long key) {
+        int slot = slot(key);
+        while (values[slot] != MISSING && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == MISSING) {
+            return MISSING;
+        }
+        long removed = values[slot];
+        //pull back following entries of the cluster that may no longer be reachable through the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != MISSING; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = MISSING;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long estimatedBytes() {
+        return 16L + keys.length * 8L + 16L + values.length * 8L;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldValues.length * 2);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != MISSING) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    private int slot(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+}
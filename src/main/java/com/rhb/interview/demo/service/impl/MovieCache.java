@@ -0,0 +1,143 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rhb.interview.demo.config.MovieCacheProperties;
+import com.rhb.interview.demo.config.ReadRouting;
+import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Read through cache in front of single movie lookups
+ * bounded by size and expiring by time, a missing movie is cached as an empty optional with a shorter ttl.
+ * Cached responses are shared between requests and must not be modified.
+ *
+ * Entries are invalidated after the writing transaction commits. A lookup that is loading is cached as a pending
+ * future and runs its loader outside the cache's locks: the loader waits for a pooled connection, while a writer
+ * invalidates with its connection still held, so neither may wait on the other. An invalidation removes a pending
+ * entry right away, the stale value still reaches the lookups waiting on it but is never cached
+ */
+@Component
+public class MovieCache implements MeterBinder {
+    private final AsyncCache<Long, Optional<MovieResponse>> cache;
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final boolean disabled;
+
+    @Autowired
+    public MovieCache(MovieCacheProperties properties) {
+        this.disabled = properties.getMaximumSize() == 0;
+        long ttl = properties.getTtl().toNanos();
+        long negativeTtl = properties.getNegativeTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<Long, Optional<MovieResponse>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<MovieResponse> movie, long currentTime) {
+                        return movie.isPresent() ? ttl : negativeTtl;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<MovieResponse> movie, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, movie, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<MovieResponse> movie, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Cached movie or the result of the loader, which is cached as well (including a miss)
+     * @param id
+     * @param loader
+     * @return
+     */
+    public Optional<MovieResponse> get(Long id, Function<Long, Optional<MovieResponse>> loader) {
+        //an async cache keeps completed loads around until its next maintenance, even at size 0
+        if (disabled) {
+            return loader.apply(id);
+        }
+        CompletableFuture<Optional<MovieResponse>> loading = new CompletableFuture<>();
+        CompletableFuture<Optional<MovieResponse>> movie = cache.get(id, (key, executor) -> loading);
+        if (movie == loading) {
+            //this lookup missed, load on the calling thread now that the entry is in place. From the primary, a replica
+            //that lags would get its stale row cached for the whole ttl
+            try {
+                loading.complete(ReadRouting.onPrimary(() -> loader.apply(id)));
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+            }
+        }
+        try {
+            return movie.join();
+        } catch (CompletionException e) {
+            //the loader's own exception, whichever lookup ran it
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public void invalidate(Long id) {
+        invalidations.increment();
+        cache.synchronous().invalidate(id);
+    }
+
+    //creates matter too, the id may have been cached as not found
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        invalidate(event.getId());
+    }
+
+    /**
+     * caffeine's cache.* meters tagged cache=movies, plus movies.cache.invalidations
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics(cache.synchronous(), "movies", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("movies.cache.invalidations", invalidations, LongAdder::sum)
+                .description("Movies dropped from the cache after a write")
+                .register(registry);
+    }
+
+    public Map<String, Object> statistics() {
+        CacheStats stats = cache.synchronous().stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", cache.synchronous().estimatedSize());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("hitRate", stats.hitRate());
+        statistics.put("evictions", stats.evictionCount());
+        statistics.put("invalidations", invalidations.sum());
+        statistics.put("averageLoadNanos", stats.averageLoadPenalty());
+        return statistics;
+    }
+}
@@ -0,0 +1,169 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming export of the catalog
+ * movies are read in id order from a forward only cursor (see MoviesRepository.forEachAfter) and encoded straight
+ * into the output, optionally through gzip, so memory holds a fetch of rows and fixed size buffers whatever the
+ * catalog size. Resumable: an export after an id carries on with the next movie, the id of the last complete row
+ * received is where to resume from. The read only transaction and its connection are held until the last row.
+ * When sharded the shards are exported one after the other, a shard's ids are all above those of the shards before it
+ * so the export stays in id order, each shard in a transaction of its own
+ */
+@Component
+@Profile("!reactive")
+public class MovieExporter {
+    //bytes compressed at a time and written to the response at once
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,title,category,rating\n";
+    private static final Logger log = LoggerFactory.getLogger(MovieExporter.class);
+
+    private final MoviesRepository moviesRepository;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ObjectWriter movieWriter;
+
+    private final MovieShards movieShards;
+
+    @Autowired
+    public MovieExporter(MoviesRepository moviesRepository, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                         MovieShards movieShards) {
+        this.moviesRepository = moviesRepository;
+        this.movieShards = movieShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.movieWriter = objectMapper.writerFor(Movie.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * @param output written to and flushed, not closed
+     * @param format
+     * @param afterId 0 for the whole catalog
+     * @param gzip
+     * @return movies written
+     */
+    public long export(OutputStream output, CatalogFormat format, long afterId, boolean gzip) throws IOException {
+        long started = System.nanoTime();
+        long exported;
+        if (gzip) {
+            //speed over ratio, about a quarter more rows per second than the default level for about a quarter more bytes (ExportBenchmark)
+            GZIPOutputStream compressed = new GZIPOutputStream(output, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+            exported = write(compressed, format, afterId);
+            compressed.finish();
+        } else {
+            exported = write(output, format, afterId);
+        }
+        output.flush();
+        log.info("Exported {} movies after id {} as {}{} in {} ms", exported, afterId, format, gzip ? " gzip" : "",
+                (System.nanoTime() - started) / 1_000_000);
+        return exported;
+    }
+
+    private long write(OutputStream output, CatalogFormat format, long afterId) throws IOException {
+        long[] exported = new long[1];
+        try {
+            if (format == CatalogFormat.CSV) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE / 4);
+                writer.write(CSV_HEADER);
+                movieShards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> moviesRepository.forEachAfter(afterId, movie -> {
+                    writeCsv(writer, movie);
+                    exported[0]++;
+                })));
+                writer.flush();
+            } else {
+                try (JsonGenerator generator = movieWriter.getFactory().createGenerator(output)) {
+                    //one document per line instead of jackson's default space between root values
+                    generator.setRootValueSeparator(null);
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    //a sequence writer sets up serialization once instead of once per movie
+                    SequenceWriter movies = movieWriter.writeValues(generator);
+                    movieShards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> moviesRepository.forEachAfter(afterId, movie -> {
+                        try {
+                            movies.write(movie);
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        exported[0]++;
+                    })));
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exported[0];
+    }
+
+    private static void writeCsv(Writer writer, Movie movie) {
+        try {
+            writer.write(Long.toString(movie.getId()));
+            writer.write(',');
+            writeCsvField(writer, movie.getTitle());
+            writer.write(',');
+            writeCsvField(writer, movie.getCategory());
+            writer.write(',');
+            Float rating = movie.getRating();
+            if (rating != null) {
+                writer.write(rating.toString());
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //quoted only when it has to be, a quote inside is doubled
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
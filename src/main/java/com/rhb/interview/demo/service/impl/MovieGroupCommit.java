@@ -0,0 +1,297 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.rhb.interview.demo.config.GroupCommitProperties;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit of movie creates, on with movies.group-commit.enabled
+ * callers queue their validated request and wait, a single writer thread takes up to maxBatchSize of them (waiting
+ * at most maxLinger for a batch to fill) and inserts them in one transaction, so concurrent creates share one
+ * commit and one jdbc batch instead of paying for a transaction each. Only the writer holds a connection.
+ * If the batch fails it is replayed one create per transaction so only the offending ones fail, like bulk chunks.
+ * Whatever else goes wrong fails the batch, never the writer.
+ * At most maxQueued creates wait, further callers are held back until there is room. A caller gives up after maxWait,
+ * a create that had already been taken by the writer may still be committed then.
+ * When sharded each batch goes to the next shard in turn.
+ * Statements run on the writer thread and are not counted in the caller's sql accounting
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "movies.group-commit", name = "enabled", havingValue = "true")
+public class MovieGroupCommit implements MeterBinder, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(MovieGroupCommit.class);
+
+    //queued by stop so the writer stops once it is done with what came before
+    private static final PendingCreate CLOSE = new PendingCreate(null);
+
+    private final BlockingQueue<PendingCreate> queue;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate writeTransaction;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final MovieShards movieShards;
+
+    private final int maxBatchSize;
+
+    private final long maxLingerNanos;
+
+    private final long maxWaitNanos;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder created = new LongAdder();
+
+    private final LongAdder replayed = new LongAdder();
+
+    @Autowired
+    public MovieGroupCommit(GroupCommitProperties properties, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                            MovieShards movieShards) {
+        if (properties.getMaxBatchSize() < 1 || properties.getMaxQueued() < 1 || properties.getMaxLinger().isNegative()
+                || properties.getMaxWait().isNegative() || properties.getMaxWait().isZero()) {
+            throw new IllegalStateException("movies.group-commit needs a max-batch-size and max-queued of at least 1, "
+                    + "a max-linger of 0 or more and a positive max-wait");
+        }
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.maxLingerNanos = properties.getMaxLinger().toNanos();
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.queue = new LinkedBlockingQueue<>(properties.getMaxQueued());
+        this.entityManager = entityManager;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.movieShards = movieShards;
+    }
+
+    /**
+     * Queue a create and wait until the batch it went into committed
+     * @param movieRequest an already validated request
+     * @return the created movie
+     * @throws RuntimeException the failure of this create alone, as the single item path would have thrown it,
+     * an IllegalStateException when it waited longer than maxWait or group commit is not running
+     */
+    public Movie create(MovieRequest movieRequest) {
+        PendingCreate pending = new PendingCreate(movieRequest);
+        if (!running) {
+            throw new IllegalStateException("Group commit is not running");
+        }
+        long deadline = System.nanoTime() + maxWaitNanos;
+        try {
+            if (!queue.offer(pending, maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Group commit queue stayed full for " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms");
+            }
+            //lost the race with stop, the writer may already be gone
+            if (!running && queue.remove(pending)) {
+                throw new IllegalStateException("Group commit is not running");
+            }
+            return pending.result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(queue.remove(pending)
+                    ? "Group commit did not take the create within " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms"
+                    : "Group commit did not answer within " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms, the movie may still be created");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new IllegalStateException("Interrupted waiting for group commit", e);
+        }
+    }
+
+    private void write() {
+        List<PendingCreate> batch = new ArrayList<>(maxBatchSize);
+        boolean closing = false;
+        while (!closing) {
+            PendingCreate first;
+            try {
+                first = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == CLOSE) {
+                return;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + maxLingerNanos;
+            while (batch.size() < maxBatchSize) {
+                PendingCreate next = queue.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    try {
+                        next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    } catch (InterruptedException e) {
+                        closing = true;
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                }
+                if (next == CLOSE) {
+                    closing = true;
+                    break;
+                }
+                batch.add(next);
+            }
+            try {
+                movieShards.onShard(movieShards.next(), () -> commit(batch));
+            } catch (Throwable e) {
+                //past what commit fails on its own, the batch fails and the writer carries on with the next one
+                log.error("Group commit of {} creates failed", batch.size(), e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingCreate> batch) {
+        batches.increment();
+        try {
+            writeTransaction.executeWithoutResult(status -> insert(batch));
+            complete(batch);
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+        }
+        //one bad row rolls the whole batch back, the others must not fail with it
+        for (PendingCreate pending : batch) {
+            replayed.increment();
+            try {
+                writeTransaction.executeWithoutResult(status -> insert(Collections.singletonList(pending)));
+                complete(Collections.singletonList(pending));
+            } catch (RuntimeException e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Inserts inside the writer's transaction, the events are handed to listeners once it commits
+     */
+    private void insert(List<PendingCreate> batch) {
+        MoviesEntity[] entities = new MoviesEntity[batch.size()];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new MoviesEntity(batch.get(i).request);
+            entityManager.persist(entities[i]);
+        }
+        entityManager.flush();
+        for (int i = 0; i < entities.length; i++) {
+            batch.get(i).movie = new Movie(entities[i]);
+            eventPublisher.publishEvent(MovieChangedEvent.created(batch.get(i).movie));
+        }
+        entityManager.clear();
+    }
+
+    private void complete(List<PendingCreate> batch) {
+        created.add(batch.size());
+        for (PendingCreate pending : batch) {
+            pending.result.complete(pending.movie);
+        }
+    }
+
+    @Override
+    public void start() {
+        writer = new Thread(this::write, "movies-group-commit");
+        writer.setDaemon(true);
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * Lets the writer finish what is queued, creates arriving after that fail
+     */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (queue.offer(CLOSE, maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                writer.join(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.interrupt();
+        for (PendingCreate pending; (pending = queue.poll()) != null; ) {
+            if (pending != CLOSE) {
+                pending.result.completeExceptionally(new IllegalStateException("Group commit is not running"));
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //started before and stopped after the web server, which is in the last phase
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("movies.group.commit.queued", queue, BlockingQueue::size)
+                .description("Creates waiting for the writer")
+                .register(registry);
+        FunctionCounter.builder("movies.group.commit.batches", batches, LongAdder::sum)
+                .description("Transactions committed or attempted by the writer, replays not included")
+                .register(registry);
+        FunctionCounter.builder("movies.group.commit.created", created, LongAdder::sum)
+                .description("Movies created through group commit")
+                .register(registry);
+        FunctionCounter.builder("movies.group.commit.replayed", replayed, LongAdder::sum)
+                .description("Creates written alone after their batch failed")
+                .register(registry);
+    }
+
+    private static class PendingCreate {
+        private final MovieRequest request;
+
+        private final CompletableFuture<Movie> result = new CompletableFuture<>();
+
+        //set in the transaction, handed out once it committed
+        private Movie movie;
+
+        private PendingCreate(MovieRequest request) {
+            this.request = request;
+        }
+    }
+}
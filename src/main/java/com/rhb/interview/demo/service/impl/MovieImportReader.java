@@ -0,0 +1,283 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.ValidationError;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads import rows one at a time from a character stream
+ * only the current row is buffered, a row longer than maxRowLength is skipped over and rejected rather than held.
+ * Blank lines are ignored. A csv field may be quoted, "" inside quotes is a quote and a quoted field can span lines
+ */
+abstract class MovieImportReader {
+    static final ValidationError ROW_TOO_LONG = ValidationError.of("row", "Row is too long");
+    static final ValidationError MALFORMED_JSON = ValidationError.of("row", "Row is not a json object");
+    static final ValidationError MALFORMED_CSV = ValidationError.of("row", "Row has an unterminated or misplaced quote");
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[8192];
+
+    private int position;
+
+    private int limit;
+
+    private final int maxRowLength;
+
+    //the record being read, without its line break
+    final StringBuilder row = new StringBuilder();
+
+    //line the record starts on, 1 based
+    long rowLine;
+
+    boolean rowTooLong;
+
+    private long line;
+
+    MovieImportReader(Reader reader, int maxRowLength) {
+        this.reader = reader;
+        this.maxRowLength = maxRowLength;
+    }
+
+    static MovieImportReader of(CatalogFormat format, Reader reader, ObjectReader movieReader, int maxRowLength) {
+        return format == CatalogFormat.CSV
+                ? new Csv(reader, maxRowLength)
+                : new Ndjson(reader, movieReader, maxRowLength);
+    }
+
+    /**
+     * @return the next row, null at the end of input
+     * @throws IllegalArgumentException when the input as a whole cannot be read as the format (csv header)
+     */
+    abstract Row next() throws IOException;
+
+    /**
+     * Reads the next non blank record into row
+     * @param quotes whether a line break inside double quotes belongs to the record
+     * @return false at the end of input
+     */
+    boolean readRecord(boolean quotes) throws IOException {
+        while (true) {
+            row.setLength(0);
+            rowTooLong = false;
+            rowLine = line + 1;
+            boolean read = false;
+            boolean quoted = false;
+            boolean ended = false;
+            while (!ended) {
+                if (position == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (!read) {
+                            return false;
+                        }
+                        line++;
+                        break;
+                    }
+                }
+                char c = buffer[position++];
+                read = true;
+                if (c == '\n') {
+                    line++;
+                    if (!quoted) {
+                        ended = true;
+                        continue;
+                    }
+                } else if (quotes && c == '"') {
+                    quoted = !quoted;
+                }
+                if (row.length() < maxRowLength) {
+                    row.append(c);
+                } else {
+                    rowTooLong = true;
+                }
+            }
+            if (row.length() > 0 && row.charAt(row.length() - 1) == '\r') {
+                row.setLength(row.length() - 1);
+            }
+            if (rowTooLong || !isBlank(row)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isBlank(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            if (!Character.isWhitespace(chars.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A parsed row, either a request still to be validated or the reason it could not be parsed
+     */
+    static final class Row {
+        private final long line;
+
+        private final MovieRequest request;
+
+        private final ValidationError error;
+
+        private Row(long line, MovieRequest request, ValidationError error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+
+        long getLine() {
+            return line;
+        }
+
+        MovieRequest getRequest() {
+            return request;
+        }
+
+        ValidationError getError() {
+            return error;
+        }
+    }
+
+    private static final class Ndjson extends MovieImportReader {
+        private final ObjectReader movieReader;
+
+        private Ndjson(Reader reader, ObjectReader movieReader, int maxRowLength) {
+            super(reader, maxRowLength);
+            this.movieReader = movieReader;
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (!readRecord(false)) {
+                return null;
+            }
+            if (rowTooLong) {
+                return new Row(rowLine, null, ROW_TOO_LONG);
+            }
+            try {
+                MovieRequest request = movieReader.readValue(row.toString());
+                return new Row(rowLine, request, request == null ? MALFORMED_JSON : null);
+            } catch (JsonProcessingException e) {
+                return new Row(rowLine, null, MALFORMED_JSON);
+            }
+        }
+    }
+
+    private static final class Csv extends MovieImportReader {
+        private final List<String> fields = new ArrayList<>();
+
+        private final StringBuilder field = new StringBuilder();
+
+        private int title = -1;
+
+        private int category = -1;
+
+        private int rating = -1;
+
+        private Csv(Reader reader, int maxRowLength) {
+            super(reader, maxRowLength);
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (title < 0 && !readHeader()) {
+                return null;
+            }
+            if (!readRecord(true)) {
+                return null;
+            }
+            if (rowTooLong) {
+                return new Row(rowLine, null, ROW_TOO_LONG);
+            }
+            if (!split()) {
+                return new Row(rowLine, null, MALFORMED_CSV);
+            }
+            MovieRequest request = new MovieRequest();
+            request.setTitle(field(title));
+            request.setCategory(field(category));
+            request.setRating(field(rating));
+            return new Row(rowLine, request, null);
+        }
+
+        private boolean readHeader() throws IOException {
+            if (!readRecord(true)) {
+                return false;
+            }
+            //a byte order mark is not part of the first column name
+            if (row.length() > 0 && row.charAt(0) == '\uFEFF') {
+                row.deleteCharAt(0);
+            }
+            if (!rowTooLong && split()) {
+                for (int i = 0; i < fields.size(); i++) {
+                    switch (fields.get(i).trim().toLowerCase(Locale.ROOT)) {
+                        case "title": title = i; break;
+                        case "category": category = i; break;
+                        case "rating": rating = i; break;
+                        default:
+                    }
+                }
+            }
+            if (title < 0 || category < 0 || rating < 0) {
+                throw new IllegalArgumentException("The csv header must name the title, category and rating columns");
+            }
+            return true;
+        }
+
+        //a column the row is too short for is missing, the validation reports it
+        private String field(int index) {
+            return index < fields.size() ? fields.get(index) : null;
+        }
+
+        /**
+         * @return false when the quotes of the record are malformed
+         */
+        private boolean split() {
+            fields.clear();
+            int length = row.length();
+            int i = 0;
+            while (true) {
+                field.setLength(0);
+                if (i < length && row.charAt(i) == '"') {
+                    i++;
+                    while (true) {
+                        if (i >= length) {
+                            return false;
+                        }
+                        char c = row.charAt(i++);
+                        if (c != '"') {
+                            field.append(c);
+                        } else if (i < length && row.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (i < length && row.charAt(i) != ',') {
+                        return false;
+                    }
+                } else {
+                    while (i < length && row.charAt(i) != ',') {
+                        field.append(row.charAt(i++));
+                    }
+                }
+                fields.add(field.toString());
+                if (i >= length) {
+                    return true;
+                }
+                i++;
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rhb.interview.demo.config.ImportProperties;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.ImportRejectedRow;
+import com.rhb.interview.demo.dto.ImportResponse;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.Ratings;
+import com.rhb.interview.demo.dto.ValidationResult;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming import of new movies
+ * rows are parsed one at a time, validated with the same rules as a single create and written batchSize at a time,
+ * each batch one transaction and one jdbc batch with ids from the entity's generator, so memory holds a batch at
+ * most whatever the input size. A batch the database refuses is written again row by row and only the refused rows
+ * are rejected. Rows committed before a failure of the input itself stay imported, such a failure is answered with
+ * the counts so far and the error instead of an exception.
+ * Every imported movie is published as a MovieChangedEvent like any create, once its batch committed.
+ * When sharded each batch goes to the next shard in turn.
+ * Progress is logged every progressInterval
+ */
+@Component
+@Profile("!reactive")
+public class MovieImporter {
+    private static final Logger log = LoggerFactory.getLogger(MovieImporter.class);
+
+    private final MoviesRepository moviesRepository;
+
+    private final TransactionTemplate writeTransaction;
+
+    private final ObjectReader movieReader;
+
+    private final Validator validator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ImportProperties properties;
+
+    private final MovieShards movieShards;
+
+    @Autowired
+    public MovieImporter(MoviesRepository moviesRepository, PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper, Validator validator, ApplicationEventPublisher eventPublisher,
+                         ImportProperties properties, MovieShards movieShards) {
+        this.moviesRepository = moviesRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.movieReader = objectMapper.readerFor(MovieRequest.class);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.movieShards = movieShards;
+    }
+
+    /**
+     * Import with the first maxReportedRejections rejected rows kept in the response
+     * @param input read to its end, not closed
+     * @param format
+     * @return
+     * @throws IllegalArgumentException when the input cannot be read as the format at all (csv header)
+     */
+    public ImportResponse importMovies(Reader input, CatalogFormat format) {
+        List<ImportRejectedRow> rejectedRows = new ArrayList<>();
+        ImportResponse response = importMovies(input, format, row -> {
+            if (rejectedRows.size() < properties.getMaxReportedRejections()) {
+                rejectedRows.add(row);
+            }
+        });
+        response.setRejectedRows(rejectedRows);
+        if (response.getRejected() > rejectedRows.size()) {
+            response.setTruncated(true);
+        }
+        return response;
+    }
+
+    /**
+     * @param input read to its end, not closed
+     * @param format
+     * @param rejected called with every rejected row as it is found
+     * @return the counts, without rejected rows, and the error when the import stopped part way
+     * @throws IllegalArgumentException when the input cannot be read as the format at all (csv header), before any batch is written
+     */
+    public ImportResponse importMovies(Reader input, CatalogFormat format, Consumer<ImportRejectedRow> rejected) {
+        Progress progress = new Progress(format, properties.getProgressInterval().toNanos());
+        ImportResponse response = new ImportResponse();
+        try {
+            read(MovieImportReader.of(format, input, movieReader, properties.getMaxRowLength()), progress, rejected);
+            progress.log(true);
+        } catch (IllegalArgumentException e) {
+            if (progress.batches > 0) {
+                failed(response, progress, e);
+            } else {
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            failed(response, progress, e);
+        }
+        response.setRead(progress.read);
+        response.setImported(progress.imported);
+        response.setRejected(progress.rejected);
+        return response;
+    }
+
+    //the batches written so far stay, the caller learns how far the import got
+    private void failed(ImportResponse response, Progress progress, Exception e) {
+        log.error("{} import failed after {} rows read, {} imported, {} rejected", progress.format, progress.read,
+                progress.imported, progress.rejected, e);
+        response.setError(String.valueOf(e));
+    }
+
+    private void read(MovieImportReader rows, Progress progress, Consumer<ImportRejectedRow> rejected) throws IOException {
+        List<MovieImportReader.Row> batch = new ArrayList<>(properties.getBatchSize());
+        for (MovieImportReader.Row row; (row = rows.next()) != null; ) {
+            progress.read++;
+            ValidationResult validation = row.getError() != null
+                    ? row.getError().asResult()
+                    : MovieValidation.validate(validator, row.getRequest());
+            if (!validation.isValid()) {
+                ImportRejectedRow rejection = new ImportRejectedRow(row.getLine());
+                rejection.setErrors(validation.getErrors());
+                progress.rejected++;
+                rejected.accept(rejection);
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == properties.getBatchSize()) {
+                write(batch, progress, rejected);
+                batch.clear();
+                progress.log(false);
+            }
+        }
+        write(batch, progress, rejected);
+    }
+
+    private void write(List<MovieImportReader.Row> batch, Progress progress, Consumer<ImportRejectedRow> rejected) {
+        if (!batch.isEmpty()) {
+            progress.batches++;
+            movieShards.onShard(movieShards.next(), () -> writeBatch(batch, progress, rejected));
+        }
+    }
+
+    private void writeBatch(List<MovieImportReader.Row> batch, Progress progress, Consumer<ImportRejectedRow> rejected) {
+        try {
+            publish(writeTransaction.execute(status -> insert(batch)));
+            progress.imported += batch.size();
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Import batch of {} rows from line {} failed, writing it row by row: {}",
+                    batch.size(), batch.get(0).getLine(), String.valueOf(e.getCause() == null ? e : e.getCause()));
+        }
+        for (MovieImportReader.Row row : batch) {
+            try {
+                publish(writeTransaction.execute(status -> insert(Collections.singletonList(row))));
+                progress.imported++;
+            } catch (RuntimeException e) {
+                ImportRejectedRow rejection = new ImportRejectedRow(row.getLine());
+                rejection.setError(String.valueOf(e.getCause() == null ? e : e.getCause()));
+                progress.rejected++;
+                rejected.accept(rejection);
+            }
+        }
+    }
+
+    private List<Movie> insert(List<MovieImportReader.Row> batch) {
+        List<Movie> movies = new ArrayList<>(batch.size());
+        for (MovieImportReader.Row row : batch) {
+            MovieRequest request = row.getRequest();
+            movies.add(new Movie(null, request.getTitle(), request.getCategory(), Ratings.parse(request.getRating())));
+        }
+        moviesRepository.insertAll(movies);
+        return movies;
+    }
+
+    /**
+     * Published once the batch committed rather than from inside the transaction, listeners then run right away
+     * instead of each row registering a synchronization per listener for the commit to sort and run
+     */
+    private void publish(List<Movie> movies) {
+        for (Movie movie : movies) {
+            eventPublisher.publishEvent(MovieChangedEvent.created(movie));
+        }
+    }
+
+    private static class Progress {
+        private final CatalogFormat format;
+
+        private final long intervalNanos;
+
+        private final long started = System.nanoTime();
+
+        private long logged = started;
+
+        private long batches;
+
+        private long read;
+
+        private long imported;
+
+        private long rejected;
+
+        private Progress(CatalogFormat format, long intervalNanos) {
+            this.format = format;
+            this.intervalNanos = intervalNanos;
+        }
+
+        private void log(boolean done) {
+            long now = System.nanoTime();
+            if (!done && now - logged < intervalNanos) {
+                return;
+            }
+            logged = now;
+            long elapsedMillis = Math.max(1, (now - started) / 1_000_000);
+            log.info("{} {} import: {} rows read, {} imported, {} rejected in {} ms ({} rows/s)",
+                    done ? "Finished" : "Running", format, read, imported, rejected, elapsedMillis, read * 1000 / elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.rhb.interview.demo.config.ShardRouting;
+import com.rhb.interview.demo.config.ShardingProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Where movies live when they are sharded (movies.sharding.enabled), see ShardRouting
+ * a movie is read, updated and deleted on the shard in its id, new movies go to the shards in turn and whatever
+ * covers every movie asks each shard. Work on a shard starts its own transaction after picking it, a transaction
+ * never spans shards. Open in view binds one entity manager to the request thread and it holds on to the first
+ * connection it got, so work on a shard runs without it and each transaction opens an entity manager on that shard.
+ * Without sharding there is one shard, the database, and nothing runs on another thread
+ */
+@Component
+public class MovieShards implements DisposableBean {
+    private final int count;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    //null with a single shard
+    private final ExecutorService scatter;
+
+    //none on the reactive stack
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    @Autowired
+    public MovieShards(ShardingProperties properties, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.count = properties.getShardCount();
+        this.entityManagerFactory = entityManagerFactory;
+        if (count == 1) {
+            this.scatter = null;
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.scatter = Executors.newFixedThreadPool(properties.getScatterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "movies-shard-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the shard a new movie goes to, each in turn
+     */
+    public int next() {
+        return count == 1 ? 0 : Math.floorMod(next.getAndIncrement(), count);
+    }
+
+    /**
+     * @return the shard of the movie with the id, or -1 when the id names no configured shard and so no movie
+     */
+    public int shardOf(long id) {
+        int shard = ShardRouting.shardOf(id);
+        return shard < count ? shard : -1;
+    }
+
+    /**
+     * @throws IllegalStateException in a transaction when sharded, its connection is on the shard it began on
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (count == 1) {
+            return ShardRouting.onShard(shard, work);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("A shard is picked before the transaction begins");
+        }
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        Object inView = factory == null ? null : TransactionSynchronizationManager.unbindResourceIfPossible(factory);
+        try {
+            return ShardRouting.onShard(shard, work);
+        } finally {
+            if (inView != null) {
+                TransactionSynchronizationManager.bindResource(factory, inView);
+            }
+        }
+    }
+
+    public void onShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs work on every shard one after the other, in shard order, on the calling thread
+     */
+    public void forEachShard(IntConsumer work) {
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            onShard(shard, () -> work.accept(current));
+        }
+    }
+
+    /**
+     * Runs work on every shard at once, each on a thread of its own, and waits for all of them
+     * @return the result of every shard in shard order
+     * @throws RuntimeException the failure of the first shard that failed, the others are cancelled
+     */
+    public <T> List<T> scatter(IntFunction<T> work) {
+        if (scatter == null) {
+            return Collections.singletonList(onShard(0, () -> work.apply(0)));
+        }
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int current = shard;
+            futures.add(scatter.submit(() -> ShardRouting.onShard(current, () -> work.apply(current))));
+        }
+        List<T> results = new ArrayList<>(count);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scatter != null) {
+            scatter.shutdownNow();
+        }
+    }
+}
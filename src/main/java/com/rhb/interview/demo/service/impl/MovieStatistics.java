@@ -0,0 +1,262 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.rhb.interview.demo.config.ReadRouting;
+import com.rhb.interview.demo.dto.CategoryStatistics;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.Ratings;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Count, mean rating and half star histogram per category, kept in memory so reads never scan the table
+ * every category has one LongAdder per half star (plus one for unrated movies), writers only add to cells
+ * so concurrent writes do not contend and a read sums O(categories) counters.
+ *
+ * Updates and deletes carry no previous values, so the last known category and rating of every movie is
+ * remembered, packed in an int, in maps striped by id. The difference between that and the new state is
+ * what gets applied to the counters.
+ * Events of one movie can arrive in another order than they committed, its version is remembered next to its
+ * state and an event older than the one applied is dropped. A deleted movie keeps the version DELETED until the
+ * next build, a late create or update of it is dropped too instead of counting it again.
+ *
+ * Built from the database once the application is ready and then kept current from MovieChangedEvent after
+ * each commit, changes committed during the build are replayed on top of it. While writes are in flight a
+ * read may see one of them half applied, at rest the numbers are exact. Per instance like the movie cache
+ */
+@Component
+public class MovieStatistics {
+    private static final int STRIPES = 64;
+    private static final Logger log = LoggerFactory.getLogger(MovieStatistics.class);
+
+    private final MoviesRepository moviesRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final MovieShards movieShards;
+
+    private final Map<String, Counters> byCategory = new ConcurrentHashMap<>();
+
+    //written under the byCategory lock, ordinals are packed into the per movie state
+    private volatile Counters[] byOrdinal = new Counters[0];
+
+    //last seen state of each movie, category ordinal << 4 | half stars, each stripe guarded by itself
+    private final LongIntHashMap[] states = new LongIntHashMap[STRIPES];
+
+    //version of each movie's state, MovieChangedEvent.DELETED once deleted, guarded by the stripe of states
+    private final LongLongHashMap[] versions = new LongLongHashMap[STRIPES];
+
+    private final Object pendingLock = new Object();
+
+    //changes committed during a build, null once the statistics are ready
+    private volatile List<MovieChangedEvent> pending = new ArrayList<>();
+
+    @Autowired
+    public MovieStatistics(MoviesRepository moviesRepository, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager, MovieShards movieShards) {
+        this.moviesRepository = moviesRepository;
+        this.movieShards = movieShards;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (int i = 0; i < STRIPES; i++) {
+            states[i] = new LongIntHashMap(1024);
+            versions[i] = new LongLongHashMap(1024);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Drops every counter and reads all movies again, meant for startup and tests
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        synchronized (pendingLock) {
+            pending = new ArrayList<>();
+        }
+        synchronized (byCategory) {
+            byCategory.clear();
+            byOrdinal = new Counters[0];
+        }
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (states[stripe]) {
+                states[stripe].clear();
+                versions[stripe].clear();
+            }
+        }
+
+        try {
+            //counters are only moved by events from here on, a lagging replica would keep them wrong
+            ReadRouting.onPrimary(() -> movieShards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<MoviesEntity> movies = moviesRepository.streamAllOrderById()) {
+                    int read = 0;
+                    for (Iterator<MoviesEntity> iterator = movies.iterator(); iterator.hasNext(); ) {
+                        MoviesEntity movie = iterator.next();
+                        apply(movie.getId(), movie.getCategory(), movie.getRatingHalfStars(), movie.getVersion());
+                        if (++read % MoviesRepository.STREAM_FETCH_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+            })));
+        } catch (RuntimeException e) {
+            log.error("Movie statistics build failed, statistics stay unavailable", e);
+            return;
+        }
+
+        synchronized (pendingLock) {
+            pending.forEach(this::apply);
+            pending = null;
+        }
+        log.info("Movie statistics built for {} categories in {} ms",
+                byOrdinal.length, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (pending != null) {
+            synchronized (pendingLock) {
+                if (pending != null) {
+                    pending.add(event);
+                    return;
+                }
+            }
+        }
+        apply(event);
+    }
+
+    public boolean isReady() {
+        return pending == null;
+    }
+
+    /**
+     * @return one entry per category that has movies, ordered by category
+     */
+    public List<CategoryStatistics> categories() {
+        Counters[] counters = byOrdinal;
+        List<CategoryStatistics> categories = new ArrayList<>(counters.length);
+        for (Counters category : counters) {
+            long count = 0;
+            long rated = 0;
+            long halfStarSum = 0;
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int halfStars = 0; halfStars <= Ratings.MAX_HALF_STARS; halfStars++) {
+                long movies = category.halfStars[halfStars].sum();
+                count += movies;
+                if (halfStars > 0) {
+                    rated += movies;
+                    halfStarSum += movies * halfStars;
+                    histogram.put(String.valueOf(halfStars / 2f), movies);
+                }
+            }
+            if (count > 0) {
+                categories.add(new CategoryStatistics(category.name, count,
+                        rated == 0 ? null : halfStarSum / (2.0 * rated), histogram));
+            }
+        }
+        categories.sort(Comparator.comparing(CategoryStatistics::getCategory));
+        return categories;
+    }
+
+    private void apply(MovieChangedEvent event) {
+        if (event.getType() == MovieChangedEvent.Type.DELETED) {
+            apply(event.getId(), LongIntHashMap.MISSING, event.getVersion());
+        } else {
+            Movie movie = event.getMovie();
+            apply(movie.getId(), movie.getCategory(), movie.getRatingHalfStars(), event.getVersion());
+        }
+    }
+
+    private void apply(long id, String category, byte rating, long version) {
+        apply(id, counters(category == null ? "" : category).ordinal << 4 | halfStars(rating), version);
+    }
+
+    /**
+     * @param state MISSING for a delete
+     */
+    private void apply(long id, int state, long version) {
+        int stripe = stripe(id);
+        int previous;
+        synchronized (states[stripe]) {
+            //committed before the change already applied, MISSING (-1) is older than any version
+            if (version < versions[stripe].get(id)) {
+                return;
+            }
+            versions[stripe].put(id, version);
+            previous = state == LongIntHashMap.MISSING ? states[stripe].remove(id) : states[stripe].put(id, state);
+        }
+        move(previous, state);
+    }
+
+    private void move(int previous, int state) {
+        if (previous == state) {
+            return;
+        }
+        if (previous != LongIntHashMap.MISSING) {
+            byOrdinal[previous >>> 4].halfStars[previous & 0xF].decrement();
+        }
+        if (state != LongIntHashMap.MISSING) {
+            byOrdinal[state >>> 4].halfStars[state & 0xF].increment();
+        }
+    }
+
+    private static int stripe(long id) {
+        return (int) (id ^ (id >>> 32)) & (STRIPES - 1);
+    }
+
+    private Counters counters(String category) {
+        Counters counters = byCategory.get(category);
+        if (counters != null) {
+            return counters;
+        }
+        synchronized (byCategory) {
+            return byCategory.computeIfAbsent(category, name -> {
+                Counters created = new Counters(name, byOrdinal.length);
+                Counters[] grown = Arrays.copyOf(byOrdinal, byOrdinal.length + 1);
+                grown[created.ordinal] = created;
+                byOrdinal = grown;
+                return created;
+            });
+        }
+    }
+
+    //Ratings.NONE counts as unrated
+    private static int halfStars(byte rating) {
+        return rating < Ratings.MIN_HALF_STARS || rating > Ratings.MAX_HALF_STARS ? Ratings.NONE : rating;
+    }
+
+    private static final class Counters {
+        private final String name;
+        private final int ordinal;
+        private final LongAdder[] halfStars = new LongAdder[Ratings.MAX_HALF_STARS + 1];
+
+        private Counters(String name, int ordinal) {
+            this.name = name;
+            this.ordinal = ordinal;
+            for (int i = 0; i < halfStars.length; i++) {
+                halfStars[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.rhb.interview.demo.config.ReadRouting;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In memory trigram index over movie titles for case insensitive substring search
+ * every lowercased title is broken into its 3 character grams, each gram keeps a sorted posting list of the
+ * documents containing it. A query intersects the posting lists of its own grams starting from the rarest,
+ * then checks the surviving candidates really contain the query since grams can match out of order.
+ *
+ * Documents are numbered in the order they are added so posting lists stay sorted by appending. An update
+ * that changes the title or a delete only tombstones the old document, the index is compacted once more than
+ * half of the documents are dead. Category and rating are kept next to the title so hits are answered without
+ * the database.
+ *
+ * Built from the database once the application is ready and kept current from MovieChangedEvent after each
+ * commit. Changes committed while the build runs are queued and replayed on top of it, until then searches are
+ * refused rather than answered from a partial index. Per instance like the movie cache
+ *
+ * Events of one movie can arrive in another order than they committed, so the version of every movie is kept
+ * (about 32 bytes a movie) and an event older than the one applied is dropped. A deleted movie stays there as
+ * DELETED until the next build, a late create or update of it is then dropped too instead of bringing it back
+ */
+@Component
+public class MovieTitleIndex {
+    public static final int GRAM_LENGTH = 3;
+    private static final int MIN_COMPACTION = 1024;
+    private static final Logger log = LoggerFactory.getLogger(MovieTitleIndex.class);
+
+    private final MoviesRepository moviesRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final MovieShards movieShards;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //everything below is guarded by lock
+    private long[] ids;
+
+    //null once the document is deleted or replaced
+    private String[] titles;
+
+    private String[] categories;
+
+    //half stars, see Ratings
+    private byte[] ratings;
+
+    private int documents;
+
+    private int deleted;
+
+    private long titleChars;
+
+    private final LongIntHashMap documentById = new LongIntHashMap(1024);
+
+    //version of every movie applied, MovieChangedEvent.DELETED once deleted
+    private final LongLongHashMap versions = new LongLongHashMap(1024);
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    //categories repeat a lot, every document points at one shared string per category
+    private final Map<String, String> categoryNames = new HashMap<>();
+
+    //changes committed during a build, null once the index is ready
+    private List<MovieChangedEvent> pending = new ArrayList<>();
+
+    @Autowired
+    public MovieTitleIndex(MoviesRepository moviesRepository, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager, MovieShards movieShards) {
+        this.moviesRepository = moviesRepository;
+        this.movieShards = movieShards;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        allocate(1024);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Drops the index and reads every movie again, searches are refused until it is done
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            allocate(1024);
+            documentById.clear();
+            versions.clear();
+            postings.clear();
+            categoryNames.clear();
+            documents = 0;
+            deleted = 0;
+            titleChars = 0;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            //the index outlives the read, a lagging replica would leave it behind for good
+            ReadRouting.onPrimary(() -> movieShards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<MoviesEntity> movies = moviesRepository.streamAllOrderById()) {
+                    int read = 0;
+                    for (Iterator<MoviesEntity> iterator = movies.iterator(); iterator.hasNext(); ) {
+                        MoviesEntity movie = iterator.next();
+                        lock.writeLock().lock();
+                        try {
+                            versions.put(movie.getId(), movie.getVersion());
+                            put(movie.getId(), movie.getTitle(), movie.getCategory(), movie.getRatingHalfStars());
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                        if (++read % MoviesRepository.STREAM_FETCH_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+            })));
+        } catch (RuntimeException e) {
+            log.error("Movie title index build failed, search stays unavailable", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(this::apply);
+            pending = null;
+            log.info("Movie title index built with {} movies and {} grams in {} ms, about {} bytes",
+                    documents - deleted, postings.size(), (System.nanoTime() - started) / 1_000_000, estimatedBytes());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return pending == null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Movies whose title contains the query, ignoring case
+     * ranked exact title first, then titles starting with the query, then the query starting a word, then anywhere
+     * else; shorter titles first within a rank, then lowest id
+     * @param query at least GRAM_LENGTH characters
+     * @param limit
+     * @return at most limit movies, empty while the index is not ready
+     */
+    public List<Movie> search(String query, int limit) {
+        long[] grams = grams(query);
+        lock.readLock().lock();
+        try {
+            if (pending != null) {
+                return Collections.emptyList();
+            }
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return Collections.emptyList();
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            //worst hit on top so it is the one dropped once there are more than limit
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder());
+            int[] positions = new int[lists.length];
+            Postings rarest = lists[0];
+            candidates:
+            for (int i = 0; i < rarest.size; i++) {
+                int document = rarest.documents[i];
+                for (int l = 1; l < lists.length; l++) {
+                    positions[l] = lists[l].seek(document, positions[l]);
+                    if (positions[l] == lists[l].size) {
+                        break candidates;
+                    }
+                    if (lists[l].documents[positions[l]] != document) {
+                        continue candidates;
+                    }
+                }
+                String title = titles[document];
+                int at = title == null ? -1 : indexOfIgnoreCase(title, query);
+                if (at < 0) {
+                    continue;
+                }
+                best.add(new Hit(document, rank(title, query, at), title.length(), ids[document]));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            Movie[] movies = new Movie[best.size()];
+            for (int i = movies.length - 1; i >= 0; i--) {
+                int document = best.poll().document;
+                movies[i] = new Movie(ids[document], titles[document], categories[document], ratings[document]);
+            }
+            return Arrays.asList(movies);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> statistics() {
+        lock.readLock().lock();
+        try {
+            long postingEntries = 0;
+            for (Postings list : postings.values()) {
+                postingEntries += list.size;
+            }
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("ready", pending == null);
+            statistics.put("movies", documents - deleted);
+            statistics.put("deletedDocuments", deleted);
+            statistics.put("grams", postings.size());
+            statistics.put("postingEntries", postingEntries);
+            statistics.put("estimatedBytes", estimatedBytes());
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(MovieChangedEvent event) {
+        //committed before the change already applied, MISSING (-1) is older than any version
+        if (event.getVersion() < versions.get(event.getId())) {
+            return;
+        }
+        versions.put(event.getId(), event.getVersion());
+        if (event.getType() == MovieChangedEvent.Type.DELETED) {
+            int document = documentById.remove(event.getId());
+            if (document != LongIntHashMap.MISSING) {
+                tombstone(document);
+            }
+        } else {
+            Movie movie = event.getMovie();
+            put(movie.getId(), movie.getTitle(), movie.getCategory(), movie.getRatingHalfStars());
+        }
+    }
+
+    private void put(long id, String title, String category, byte rating) {
+        String indexedTitle = title == null ? "" : title;
+        int existing = documentById.get(id);
+        if (existing != LongIntHashMap.MISSING) {
+            //same title, same grams, only the stored fields change
+            if (indexedTitle.equals(titles[existing])) {
+                categories[existing] = categoryName(category);
+                ratings[existing] = rating;
+                return;
+            }
+            tombstone(existing);
+        }
+        if (documents == ids.length) {
+            grow(ids.length * 2);
+        }
+        int document = documents++;
+        ids[document] = id;
+        titles[document] = indexedTitle;
+        categories[document] = categoryName(category);
+        ratings[document] = rating;
+        titleChars += indexedTitle.length();
+        documentById.put(id, document);
+        for (long gram : grams(indexedTitle)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(document);
+        }
+        if (deleted >= MIN_COMPACTION && deleted * 2 > documents) {
+            compact();
+        }
+    }
+
+    private void tombstone(int document) {
+        titleChars -= titles[document].length();
+        titles[document] = null;
+        categories[document] = null;
+        deleted++;
+    }
+
+    /**
+     * Renumbers the live documents in their current order, which keeps every posting list sorted
+     */
+    private void compact() {
+        int[] renumbered = new int[documents];
+        int live = 0;
+        for (int document = 0; document < documents; document++) {
+            if (titles[document] == null) {
+                renumbered[document] = LongIntHashMap.MISSING;
+                continue;
+            }
+            renumbered[document] = live;
+            ids[live] = ids[document];
+            titles[live] = titles[document];
+            categories[live] = categories[document];
+            ratings[live] = ratings[document];
+            live++;
+        }
+        Arrays.fill(titles, live, documents, null);
+        Arrays.fill(categories, live, documents, null);
+        documents = live;
+        deleted = 0;
+
+        documentById.clear();
+        for (int document = 0; document < live; document++) {
+            documentById.put(ids[document], document);
+        }
+        for (Iterator<Postings> iterator = postings.values().iterator(); iterator.hasNext(); ) {
+            Postings list = iterator.next();
+            list.renumber(renumbered);
+            if (list.size == 0) {
+                iterator.remove();
+            }
+        }
+        categoryNames.values().retainAll(new HashSet<>(Arrays.asList(categories).subList(0, live)));
+    }
+
+    private String categoryName(String category) {
+        return category == null ? null : categoryNames.computeIfAbsent(category, name -> name);
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        titles = new String[capacity];
+        categories = new String[capacity];
+        ratings = new byte[capacity];
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+    }
+
+    //rough heap usage assuming compressed oops and one byte per title character
+    private long estimatedBytes() {
+        long bytes = ids.length * 8L + titles.length * 4L + categories.length * 4L + ratings.length;
+        bytes += (documents - deleted) * 40L + titleChars;
+        bytes += documentById.estimatedBytes() + versions.estimatedBytes();
+        for (Postings list : postings.values()) {
+            //posting object, its array, the boxed gram and the hash map node
+            bytes += 24 + 16 + list.documents.length * 4L + 24 + 32;
+        }
+        bytes += postings.size() * 4L * 2;
+        return bytes;
+    }
+
+    /**
+     * Distinct grams of the lowercased text, three chars packed in a long
+     */
+    static long[] grams(String text) {
+        int count = Math.max(0, text.length() - GRAM_LENGTH + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) Character.toLowerCase(text.charAt(i)) << 32)
+                    | ((long) Character.toLowerCase(text.charAt(i + 1)) << 16)
+                    | Character.toLowerCase(text.charAt(i + 2));
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == count ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    private static int indexOfIgnoreCase(String title, String query) {
+        for (int at = 0; at <= title.length() - query.length(); at++) {
+            if (title.regionMatches(true, at, query, 0, query.length())) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    private static int rank(String title, String query, int at) {
+        if (at == 0) {
+            return title.length() == query.length() ? 0 : 1;
+        }
+        return Character.isLetterOrDigit(title.charAt(at - 1)) ? 3 : 2;
+    }
+
+    private static final class Hit implements Comparable<Hit> {
+        private final int document;
+        private final int rank;
+        private final int length;
+        private final long id;
+
+        private Hit(int document, int rank, int length, long id) {
+            this.document = document;
+            this.rank = rank;
+            this.length = length;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            if (rank != other.rank) {
+                return Integer.compare(rank, other.rank);
+            }
+            if (length != other.length) {
+                return Integer.compare(length, other.length);
+            }
+            return Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Growable sorted array of document numbers
+     */
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int size;
+
+        private void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size + (size >> 1));
+            }
+            documents[size++] = document;
+        }
+
+        /**
+         * @return first position from from on holding a document not below target, size when there is none
+         */
+        private int seek(int target, int from) {
+            //gallop then binary search, candidates only move forward
+            int bound = 1;
+            while (from + bound < size && documents[from + bound] < target) {
+                bound <<= 1;
+            }
+            int position = Arrays.binarySearch(documents, from, Math.min(from + bound + 1, size), target);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        private void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int document = renumbered[documents[i]];
+                if (document != LongIntHashMap.MISSING) {
+                    documents[kept++] = document;
+                }
+            }
+            size = kept;
+            if (documents.length > 4 && kept < documents.length / 4) {
+                documents = Arrays.copyOf(documents, Math.max(4, kept));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.Ratings;
+import com.rhb.interview.demo.dto.ValidationError;
+import com.rhb.interview.demo.dto.ValidationResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validation of movie requests beyond the bean validation annotations
+ * nothing is thrown, failures come back as a ValidationResult made of shared ValidationErrors
+ */
+public final class MovieValidation {
+    public static final ValidationError INVALID_RATING = ValidationError.of("rating", "Allowed rating 0.5,1.0,1.5,2.0,2.5,3.0,3.5,4.0,4.5,5");
+
+    private MovieValidation() {
+    }
+
+    /**
+     * Binding errors if there are any, otherwise the rating check
+     * @param bindingResult
+     * @param rating
+     * @return
+     */
+    public static ValidationResult validate(BindingResult bindingResult, String rating) {
+        if (bindingResult.hasErrors()) {
+            return fromBind(bindingResult);
+        }
+        return validateRating(rating);
+    }
+
+    /**
+     * Bean validation of a request that was not bound by mvc (bulk items, imported rows), otherwise the rating check
+     * @param validator
+     * @param movieRequest
+     * @return
+     */
+    public static ValidationResult validate(Validator validator, MovieRequest movieRequest) {
+        Set<ConstraintViolation<MovieRequest>> violations = validator.validate(movieRequest);
+        return violations.isEmpty() ? validateRating(movieRequest.getRating()) : fromViolations(violations);
+    }
+
+    public static ValidationResult validateRating(String rating) {
+        return Ratings.parse(rating) == Ratings.NONE ? INVALID_RATING.asResult() : ValidationResult.VALID;
+    }
+
+    public static ValidationResult fromBind(BindingResult bindingResult) {
+        List<FieldError> fieldErrors = bindingResult.getFieldErrors();
+        List<ValidationError> errors = new ArrayList<>(fieldErrors.size());
+        for (FieldError fieldError : fieldErrors) {
+            errors.add(ValidationError.of(fieldError.getField(), fieldError.getDefaultMessage()));
+        }
+        return ValidationResult.of(errors);
+    }
+
+    public static <T> ValidationResult fromViolations(Set<ConstraintViolation<T>> violations) {
+        List<ValidationError> errors = new ArrayList<>(violations.size());
+        for (ConstraintViolation<T> violation : violations) {
+            errors.add(ValidationError.of(violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        return ValidationResult.of(errors);
+    }
+}
@@ -1,181 +1,736 @@
 package com.rhb.interview.demo.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.rhb.interview.demo.dto.*;
 import com.rhb.interview.demo.repository.entity.MoviesEntity;
 import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
 import com.rhb.interview.demo.service.MoviesService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
 public class MoviesServiceImpl implements MoviesService {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int DEFAULT_SEARCH_SIZE = 20;
+    static final int MAX_SEARCH_SIZE = 100;
+    static final float MIN_RATING = 0.5f;
+    static final float MAX_RATING = 5f;
+    //operations committed per transaction, matches hibernate.jdbc.batch_size so a chunk flushes as one batch per statement type
+    static final int BULK_CHUNK_SIZE = 500;
+    static final int MAX_BULK_OPERATIONS = 10000;
+
+    //errors of the fixed checks, shared so rejecting a request does not build them again (the reactive service uses them too)
+    static final ValidationError INVALID_RATING_RANGE = ValidationError.of("rating", "Allowed rating range within " + MIN_RATING + " to " + MAX_RATING + " and minRating not above maxRating");
+    static final ValidationError INVALID_PAGE_SIZE = ValidationError.of("limit", "Allowed limit 1 to " + MAX_PAGE_SIZE);
+    static final ValidationError INVALID_SORT = ValidationError.of("sort", "Allowed sort id,title,rating");
+    static final ValidationError INVALID_QUERY = ValidationError.of("q", "Query needs at least " + MovieTitleIndex.GRAM_LENGTH + " characters");
+    static final ValidationError INVALID_SEARCH_SIZE = ValidationError.of("limit", "Allowed limit 1 to " + MAX_SEARCH_SIZE);
+    private static final ValidationError INVALID_OPERATION_COUNT = ValidationError.of("operations", "Allowed 1 to " + MAX_BULK_OPERATIONS + " operations");
+    private static final ValidationError NULL_OPERATION = ValidationError.of("op", "Operation cannot be null");
+    private static final ValidationError INVALID_OPERATION = ValidationError.of("op", "Allowed op create,update,delete");
+    private static final ValidationError BLANK_ID = ValidationError.of("id", "Id cannot be blank");
+    private static final ValidationError BLANK_MOVIE = ValidationError.of("movie", "Movie cannot be blank");
+    private static final ValidationError INVALID_EXPORT_FORMAT = ValidationError.of("format", "Allowed format ndjson,csv");
+    private static final ValidationError INVALID_EXPORT_AFTER = ValidationError.of("after", "After cannot be negative");
+
     private MoviesRepository moviesRepository;
 
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private TransactionTemplate writeTransaction;
+
+    private ObjectWriter movieWriter;
+
+    private Validator validator;
+
+    private MovieCache movieCache;
+
+    private CatalogVersion catalogVersion;
+
+    private MovieTitleIndex movieTitleIndex;
+
+    private MovieStatistics movieStatistics;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    //null unless movies.group-commit.enabled
+    private MovieGroupCommit groupCommit;
+
+    private MovieImporter movieImporter;
+
+    private MovieExporter movieExporter;
+
+    private MovieShards movieShards;
+
+    private ObjectWriter errorWriter;
+
     @Autowired
-    public MoviesServiceImpl(MoviesRepository moviesRepository){
+    public MoviesServiceImpl(MoviesRepository moviesRepository, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                             Validator validator, MovieCache movieCache, CatalogVersion catalogVersion,
+                             MovieTitleIndex movieTitleIndex, MovieStatistics movieStatistics,
+                             ApplicationEventPublisher eventPublisher, ObjectProvider<MovieGroupCommit> groupCommit,
+                             MovieImporter movieImporter, MovieExporter movieExporter, MovieShards movieShards){
         this.moviesRepository = moviesRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.movieCache = movieCache;
+        this.catalogVersion = catalogVersion;
+        this.movieTitleIndex = movieTitleIndex;
+        this.movieStatistics = movieStatistics;
+        this.eventPublisher = eventPublisher;
+        this.groupCommit = groupCommit.getIfAvailable();
+        this.movieImporter = movieImporter;
+        this.movieExporter = movieExporter;
+        this.movieShards = movieShards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        //flushing after every row would turn each movie into its own network write
+        this.movieWriter = objectMapper.writerFor(Movie.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.errorWriter = objectMapper.writerFor(VoidResponse.class);
     }
 
     /**
      * Create movie api
      * this api will validate request as well as rating to make sure they are within the allowed range
-     * it is annotated as transactional as we are saving into db. If there's issue a rollback will happen
+     * validation runs before the transaction so an invalid request never takes a connection.
+     * The save runs in a transaction, if there's issue a rollback will happen
+     * with group commit on the save is queued instead and shares a transaction with concurrent creates,
+     * the response is the same and a failing create still only fails itself.
+     * When sharded the movie goes to the next shard in turn
      * @param movieRequest
      * @param bindingResult
      * @return
      */
     @Override
-    @Transactional
     public ResponseEntity<VoidResponse> createMovie(MovieRequest movieRequest, BindingResult bindingResult) {
         VoidResponse response = new VoidResponse();
-        if(bindingResult.hasErrors()){
-            response.setErrors(getErrorsFromBind(bindingResult));
+        ValidationResult validation = MovieValidation.validate(bindingResult, movieRequest.getRating());
+        if(!validation.isValid()){
+            response.setErrors(validation.getErrors());
             return ResponseEntity.badRequest().body(response);
         }
 
-        //Validate rating
-        try{
-            validateRating(movieRequest.getRating());
-        } catch (InvalidRating e){
-            response.setErrors(e.getErrors());
+        if (groupCommit != null) {
+            try {
+                groupCommit.create(movieRequest);
+                return ResponseEntity.status(HttpStatus.CREATED).body(null);
+            } catch (RuntimeException e) {
+                response.setError(String.valueOf(e.getCause() == null ? e : e.getCause()));
+                return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        }
+        return movieShards.onShard(movieShards.next(), () -> writeTransaction.execute(status -> {
+            try {
+                MoviesEntity created = moviesRepository.save(new MoviesEntity(movieRequest));
+                eventPublisher.publishEvent(MovieChangedEvent.created(new Movie(created)));
+                return ResponseEntity.status(HttpStatus.CREATED).body(null);
+            } catch (Exception e){
+                response.setError(e.getCause().toString());
+                return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        }));
+    }
+
+    /**
+     * Get movies list api
+     * returns one page of at most limit movies ordered by sort (id, title or rating) with id as tie breaker.
+     * the category and rating range filters are applied by the database query, not on the fetched page.
+     * pages are keyset based, the next page is requested with the nextCursor of the previous one so the
+     * database seeks to the position instead of skipping rows with offset
+     * the etag is the catalog version and the encoding, a client holding the current one gets 304 without touching the database.
+     * With read replicas a page read soon after a change may come from a replica that has not caught up, it is sent untagged.
+     * The body is json, cbor, smile or protobuf by the Accept header, caches are told so with Vary
+     * rows are read in a read only transaction straight into Movie so hibernate keeps no entities or snapshots.
+     * When sharded every shard is asked for the page at once and the pages are merged in the sort's order
+     * it will just return ok even if it is empty
+     * @param filter
+     * @param limit
+     * @param after
+     * @param sort
+     * @param ifNoneMatch
+     * @param accept picks the encoding of the etag
+     * @return
+     */
+    @Override
+    public ResponseEntity<MoviesResponse> getMovies(MovieFilter filter, Integer limit, String after, String sort, String ifNoneMatch, String accept) {
+        String etag = ETags.forEncoding(catalogVersion.etag(), accept);
+        boolean settled = catalogVersion.isSettled();
+        MoviesResponse response = new MoviesResponse();
+        if (!isRatingBound(filter.getMinRating()) || !isRatingBound(filter.getMaxRating())
+                || (filter.getMinRating() != null && filter.getMaxRating() != null && filter.getMinRating() > filter.getMaxRating())) {
+            response.setErrors(INVALID_RATING_RANGE.toErrors());
             return ResponseEntity.badRequest().body(response);
         }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            response.setErrors(INVALID_PAGE_SIZE.toErrors());
+            return ResponseEntity.badRequest().body(response);
+        }
+        Optional<MovieSort> movieSort = MovieSort.fromParam(sort);
+        if (movieSort.isEmpty()) {
+            response.setErrors(INVALID_SORT.toErrors());
+            return ResponseEntity.badRequest().body(response);
+        }
+        MovieCursor cursor = null;
+        if (after != null && !after.isEmpty()) {
+            cursor = MovieCursor.decode(after).filter(c -> c.getSort() == movieSort.get()).orElse(null);
+            if (cursor == null) {
+                response.setErrors(ValidationError.of("after", "Invalid cursor for sort " + movieSort.get().getProperty()).toErrors());
+                return ResponseEntity.badRequest().body(response);
+            }
+        }
+        if (ETags.noneMatchFails(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
 
-        try {
-            moviesRepository.save(new MoviesEntity(movieRequest));
-            return ResponseEntity.status(HttpStatus.CREATED).body(null);
-        } catch (Exception e){
-            response.setError(e.getCause().toString());
-            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        //one extra row tells us whether there is a next page without a count query
+        MovieCursor from = cursor;
+        List<Movie> page = findPage(filter, movieSort.get(), from, pageSize + 1);
+        List<Movie> movies = page.size() > pageSize ? page.subList(0, pageSize) : page;
+        response.setMovies(movies);
+        if (page.size() > pageSize) {
+            response.setNextCursor(MovieCursor.of(movieSort.get(), movies.get(movies.size() - 1)).encode());
+        }
+        if (!settled) {
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
         }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(response);
+    }
+
+    //the first limit rows after the cursor overall are among the first limit rows after it of every shard
+    private List<Movie> findPage(MovieFilter filter, MovieSort sort, MovieCursor after, int limit) {
+        List<List<Movie>> pages = movieShards.scatter(shard ->
+                readOnlyTransaction.execute(status -> moviesRepository.findPage(filter, sort, after, limit)));
+        if (pages.size() == 1) {
+            return pages.get(0);
+        }
+        List<Movie> merged = new ArrayList<>(limit * pages.size());
+        pages.forEach(merged::addAll);
+        merged.sort(sort.comparator());
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
     }
 
     /**
-     * Get movies list api
-     * it will just return ok even if it is empty
+     * Stream every movie as ndjson
+     * rows come from a forward only database cursor and each one is written to the response as soon as it is read,
+     * the persistence context is cleared every fetch so neither the entities nor the response are ever held in full.
+     * The body runs on the mvc async executor hence the explicit read only transaction instead of the annotation.
+     * When sharded the shards are read one after the other, a shard's ids are all above those of the shards before it
      * @return
      */
     @Override
-    public ResponseEntity<MoviesResponse> getMovies() {
-        List<Movie> movies = new ArrayList<>();
-        moviesRepository.findAll().iterator().forEachRemaining(moviesEntity -> movies.add(new Movie(moviesEntity)));
+    public ResponseEntity<StreamingResponseBody> streamMovies() {
+        StreamingResponseBody body = this::writeMovies;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeMovies(OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = movieWriter.getFactory().createGenerator(outputStream)) {
+            //one document per line instead of jackson's default space between root values
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            movieShards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> writeShard(generator)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeShard(JsonGenerator generator) {
+        try (Stream<MoviesEntity> movies = moviesRepository.streamAllOrderById()) {
+            int written = 0;
+            for (Iterator<MoviesEntity> iterator = movies.iterator(); iterator.hasNext(); ) {
+                movieWriter.writeValue(generator, new Movie(iterator.next()));
+                generator.writeRaw('\n');
+                if (++written % MoviesRepository.STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Search movies by title
+     * answered from the in memory title index, the query matches anywhere in the title ignoring case.
+     * Best matches first: exact title, title starting with the query, a word starting with it, then the rest
+     * 503 while the index is still being built after startup
+     * @param query
+     * @param limit
+     * @return
+     */
+    @Override
+    public ResponseEntity<MoviesResponse> searchMovies(String query, Integer limit) {
         MoviesResponse response = new MoviesResponse();
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.length() < MovieTitleIndex.GRAM_LENGTH) {
+            response.setErrors(INVALID_QUERY.toErrors());
+            return ResponseEntity.badRequest().body(response);
+        }
+        int size = limit == null ? DEFAULT_SEARCH_SIZE : limit;
+        if (size < 1 || size > MAX_SEARCH_SIZE) {
+            response.setErrors(INVALID_SEARCH_SIZE.toErrors());
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (!movieTitleIndex.isReady()) {
+            response.setError("Search index is being built, try again shortly");
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        response.setMovies(movieTitleIndex.search(trimmed, size));
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
+    }
+
+    /**
+     * Count, mean rating and half star histogram of every category
+     * read from in memory counters kept up to date by the write apis, no query is run
+     * 503 while the counters are still being built after startup
+     * @return
+     */
+    @Override
+    public ResponseEntity<MovieStatisticsResponse> getStatistics() {
+        MovieStatisticsResponse response = new MovieStatisticsResponse();
+        if (!movieStatistics.isReady()) {
+            response.setError("Statistics are being built, try again shortly");
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        List<CategoryStatistics> categories = movieStatistics.categories();
+        long movies = 0;
+        for (CategoryStatistics category : categories) {
+            movies += category.getCount();
+        }
         response.setMovies(movies);
+        response.setCategories(categories);
         return ResponseEntity.ok(response);
     }
 
     /**
      * Get a single movie
      * if movie is not found we will throw 404
+     * lookups go through the movie cache, not found is cached too for a short while
+     * a miss reads the row straight into MovieResponse in a read only transaction, on the shard in the id when sharded
+     * the etag is the movie version and the encoding, a matching If-None-Match is answered with 304 and no body
      * @param id
+     * @param ifNoneMatch
+     * @param accept picks the encoding of the etag
      * @return
      */
     @Override
-    public ResponseEntity<MovieResponse> getMovie(String id) {
-        Optional<MoviesEntity> moviesEntity = moviesRepository.findById(Long.valueOf(id));
-        if(moviesEntity.isEmpty()){
+    public ResponseEntity<MovieResponse> getMovie(String id, String ifNoneMatch, String accept) {
+        Optional<MovieResponse> movie = movieCache.get(Long.valueOf(id), this::findMovie);
+        if(movie.isEmpty()){
             return new ResponseEntity<>(null,HttpStatus.NOT_FOUND);
         }
-        return ResponseEntity.ok(new MovieResponse(moviesEntity.get()));
+        String etag = ETags.ofVersion(movie.get().getVersion(), accept);
+        if(ETags.noneMatchFails(ifNoneMatch, etag)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(movie.get());
+    }
+
+    private Optional<MovieResponse> findMovie(Long id) {
+        int shard = movieShards.shardOf(id);
+        if (shard < 0) {
+            return Optional.empty();
+        }
+        return movieShards.onShard(shard, () -> readOnlyTransaction.execute(status -> moviesRepository.findResponseById(id)));
     }
 
     /**
      * Update a movie
      * similar validation to create except it will also check for id and whether the movie is present
-     * annotated with transactional to manage save transaction
+     * the movie is overwritten with one update statement, no rows updated means it does not exist
+     * with If-Match the version is part of the update's where clause, no rows updated is then a 412
+     * without it the version the update wrote is read back in the same transaction, the change event carries it
+     * validated before and written inside a transaction, on the shard in the id when sharded
      * @param id
+     * @param ifMatch
      * @param movieRequest
      * @param bindingResult
      * @return
      */
     @Override
-    @Transactional
-    public ResponseEntity<MovieResponse> updateMovie(String id, MovieRequest movieRequest , BindingResult bindingResult) {
+    public ResponseEntity<MovieResponse> updateMovie(String id, String ifMatch, MovieRequest movieRequest , BindingResult bindingResult) {
         //if is somehow missing
         if(id==null||id.isEmpty()){
             return new ResponseEntity<>(null,HttpStatus.NOT_FOUND);
         }
+        Long expectedVersion = ifMatch == null ? null : ETags.versionOf(ifMatch);
+        if(ifMatch != null && expectedVersion == null){
+            return new ResponseEntity<>(null,HttpStatus.PRECONDITION_FAILED);
+        }
 
         MovieResponse response = new MovieResponse();
-        if(bindingResult.hasErrors()){
-            response.setErrors(getErrorsFromBind(bindingResult));
+        ValidationResult validation = MovieValidation.validate(bindingResult, movieRequest.getRating());
+        if(!validation.isValid()){
+            response.setErrors(validation.getErrors());
             return ResponseEntity.badRequest().body(response);
         }
 
-        //Validate rating
-        try{
-            validateRating(movieRequest.getRating());
-        } catch (InvalidRating e){
-            response.setErrors(e.getErrors());
-            return ResponseEntity.badRequest().body(response);
+        Movie update = new Movie(Long.valueOf(id), movieRequest.getTitle(), movieRequest.getCategory(), Ratings.parse(movieRequest.getRating()));
+        int shard = movieShards.shardOf(update.getId());
+        if(shard < 0){
+            return new ResponseEntity<>(null, ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED);
         }
+        return movieShards.onShard(shard, () -> writeTransaction.execute(status -> {
+            try {
+                int updated = isVersionCheck(expectedVersion)
+                        ? moviesRepository.updateByIdAndVersion(update.getId(), expectedVersion, update.getTitle(), update.getCategory(), update.getRatingHalfStars())
+                        : moviesRepository.updateById(update.getId(), update.getTitle(), update.getCategory(), update.getRatingHalfStars());
+                if(updated == 0){
+                    return new ResponseEntity<>(null, ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED);
+                }
+                //the row stays locked until commit, no other update can come in between
+                long version = isVersionCheck(expectedVersion)
+                        ? expectedVersion + 1
+                        : moviesRepository.findVersionById(update.getId()).orElseThrow();
+                eventPublisher.publishEvent(MovieChangedEvent.updated(update, version));
+                if(isVersionCheck(expectedVersion)){
+                    return ResponseEntity.ok().eTag(ETags.ofVersion(expectedVersion + 1)).build();
+                }
+                return new ResponseEntity<>(null, HttpStatus.OK);
+            } catch (Exception e){
+                response.setError(e.getCause().toString());
+                return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        }));
+    }
 
-        Optional<MoviesEntity> moviesEntity = moviesRepository.findById(Long.valueOf(id));
-        if(moviesEntity.isEmpty()){
-            return new ResponseEntity<>(null,HttpStatus.NOT_FOUND);
+    /**
+     * Delete a movie
+     * if movie is not found throw 404
+     * one delete statement, no rows deleted means it does not exist
+     * with If-Match the version is part of the delete's where clause, no rows deleted is then a 412
+     * runs in a transaction, on the shard in the id when sharded
+     * @param id
+     * @param ifMatch
+     * @return
+     */
+    @Override
+    public ResponseEntity<VoidResponse> deleteMovie(String id, String ifMatch) {
+        Long movieId = Long.valueOf(id);
+        Long expectedVersion = ifMatch == null ? null : ETags.versionOf(ifMatch);
+        if(ifMatch != null && expectedVersion == null){
+            return new ResponseEntity<>(null,HttpStatus.PRECONDITION_FAILED);
+        }
+        int shard = movieShards.shardOf(movieId);
+        if(shard < 0){
+            return new ResponseEntity<>(null, ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED);
         }
+        return movieShards.onShard(shard, () -> writeTransaction.execute(status -> deleteMovie(movieId, ifMatch, expectedVersion)));
+    }
+
+    private ResponseEntity<VoidResponse> deleteMovie(Long movieId, String ifMatch, Long expectedVersion) {
         try {
-            MoviesEntity update =moviesEntity.get();
-            update.setTitle(movieRequest.getTitle());
-            update.setCategory(movieRequest.getCategory());
-            update.setRating(Float.valueOf(movieRequest.getRating()));
-            moviesRepository.save(update);
+            int deleted = isVersionCheck(expectedVersion)
+                    ? moviesRepository.deleteByIdAndVersion(movieId, expectedVersion)
+                    : moviesRepository.deleteMovieById(movieId);
+            if(deleted == 0){
+                return new ResponseEntity<>(null, ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED);
+            }
+            eventPublisher.publishEvent(MovieChangedEvent.deleted(movieId));
             return new ResponseEntity<>(null, HttpStatus.OK);
         } catch (Exception e){
+            VoidResponse response = new VoidResponse();
             response.setError(e.getCause().toString());
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
-     * Delete a movie
-     * if movie is not found throw 404
-     * annotated with transactional to manage transaction
-     * @param id
+     * Bulk create, update and delete
+     * every operation is validated with the same rules as the single item apis, valid ones are applied in chunks
+     * of BULK_CHUNK_SIZE, each chunk in its own transaction so hibernate sends the statements as jdbc batches.
+     * If a chunk fails to commit it is replayed one operation per transaction so only the offending items fail,
+     * the response always carries one result per operation in request order.
+     * When sharded the operations are split by shard first (creates go to the shards in turn), chunks never span shards
+     * @param operations
      * @return
      */
     @Override
-    @Transactional
-    public ResponseEntity<VoidResponse> deleteMovie(String id) {
-        Optional<MoviesEntity> moviesEntity = moviesRepository.findById(Long.valueOf(id));
-        if(moviesEntity.isEmpty()){
-            return new ResponseEntity<>(null,HttpStatus.NOT_FOUND);
+    public ResponseEntity<BulkResponse> bulkMovies(List<BulkOperation> operations) {
+        BulkResponse response = new BulkResponse();
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_BULK_OPERATIONS) {
+            response.setErrors(INVALID_OPERATION_COUNT.toErrors());
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        BulkItemResult[] results = new BulkItemResult[operations.size()];
+        List<Integer> valid = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            results[i] = validateBulkOperation(operations.get(i));
+            if (results[i] == null) {
+                valid.add(i);
+            }
+        }
+
+        List<List<Integer>> byShard = new ArrayList<>(movieShards.count());
+        for (int shard = 0; shard < movieShards.count(); shard++) {
+            byShard.add(new ArrayList<>());
         }
+        for (Integer index : valid) {
+            BulkOperation operation = operations.get(index);
+            int shard = BulkOperation.CREATE.equals(operation.getOp()) ? movieShards.next() : movieShards.shardOf(operation.getId());
+            if (shard < 0) {
+                results[index] = new BulkItemResult(operation.getOp(), operation.getId(), HttpStatus.NOT_FOUND.value());
+            } else {
+                byShard.get(shard).add(index);
+            }
+        }
+        movieShards.forEachShard(shard -> applyBulk(operations, byShard.get(shard), results));
+
+        response.setItems(Arrays.asList(results));
+        return ResponseEntity.ok(response);
+    }
+
+    private void applyBulk(List<BulkOperation> operations, List<Integer> valid, BulkItemResult[] results) {
+        for (int from = 0; from < valid.size(); from += BULK_CHUNK_SIZE) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + BULK_CHUNK_SIZE, valid.size()));
+            try {
+                BulkItemResult[] applied = writeTransaction.execute(status -> applyBulkChunk(operations, chunk));
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = applied[i];
+                }
+            } catch (RuntimeException e) {
+                for (Integer index : chunk) {
+                    results[index] = applyBulkOperationAlone(operations, index);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return null when the operation is valid, otherwise its 400 result
+     */
+    private BulkItemResult validateBulkOperation(BulkOperation operation) {
+        if (operation == null) {
+            return BulkItemResult.invalid(new BulkOperation(), NULL_OPERATION.toErrors());
+        }
+        String op = operation.getOp();
+        if (!BulkOperation.CREATE.equals(op) && !BulkOperation.UPDATE.equals(op) && !BulkOperation.DELETE.equals(op)) {
+            return BulkItemResult.invalid(operation, INVALID_OPERATION.toErrors());
+        }
+        if (!BulkOperation.CREATE.equals(op) && operation.getId() == null) {
+            return BulkItemResult.invalid(operation, BLANK_ID.toErrors());
+        }
+        if (BulkOperation.DELETE.equals(op)) {
+            return null;
+        }
+        if (operation.getMovie() == null) {
+            return BulkItemResult.invalid(operation, BLANK_MOVIE.toErrors());
+        }
+        ValidationResult validation = MovieValidation.validate(validator, operation.getMovie());
+        return validation.isValid() ? null : BulkItemResult.invalid(operation, validation.getErrors());
+    }
+
+    /**
+     * Applies one chunk inside the caller's transaction
+     * updates and deletes share a single select for the whole chunk, later operations in the chunk see the effect
+     * of earlier ones (e.g. update after delete of the same id is a 404)
+     */
+    private BulkItemResult[] applyBulkChunk(List<BulkOperation> operations, List<Integer> chunk) {
+        Set<Long> ids = new HashSet<>();
+        for (Integer index : chunk) {
+            if (operations.get(index).getId() != null && !BulkOperation.CREATE.equals(operations.get(index).getOp())) {
+                ids.add(operations.get(index).getId());
+            }
+        }
+        Map<Long, MoviesEntity> existing = new HashMap<>();
+        if (!ids.isEmpty()) {
+            moviesRepository.findAllById(ids).forEach(moviesEntity -> existing.put(moviesEntity.getId(), moviesEntity));
+        }
+
+        BulkItemResult[] results = new BulkItemResult[chunk.size()];
+        MoviesEntity[] created = new MoviesEntity[chunk.size()];
+        List<MoviesEntity> updated = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            BulkOperation operation = operations.get(chunk.get(i));
+            switch (operation.getOp()) {
+                case BulkOperation.CREATE:
+                    created[i] = new MoviesEntity(operation.getMovie());
+                    entityManager.persist(created[i]);
+                    results[i] = new BulkItemResult(operation.getOp(), null, HttpStatus.CREATED.value());
+                    break;
+                case BulkOperation.UPDATE: {
+                    MoviesEntity update = existing.get(operation.getId());
+                    if (update == null) {
+                        results[i] = new BulkItemResult(operation.getOp(), operation.getId(), HttpStatus.NOT_FOUND.value());
+                        break;
+                    }
+                    update.setTitle(operation.getMovie().getTitle());
+                    update.setCategory(operation.getMovie().getCategory());
+                    update.setRatingHalfStars(Ratings.parse(operation.getMovie().getRating()));
+                    updated.add(update);
+                    results[i] = new BulkItemResult(operation.getOp(), operation.getId(), HttpStatus.OK.value());
+                    break;
+                }
+                default: {
+                    MoviesEntity delete = existing.remove(operation.getId());
+                    if (delete == null) {
+                        results[i] = new BulkItemResult(operation.getOp(), operation.getId(), HttpStatus.NOT_FOUND.value());
+                        break;
+                    }
+                    entityManager.remove(delete);
+                    eventPublisher.publishEvent(MovieChangedEvent.deleted(delete.getId()));
+                    results[i] = new BulkItemResult(operation.getOp(), operation.getId(), HttpStatus.OK.value());
+                }
+            }
+        }
+        entityManager.flush();
+        //the flush moved the version of every updated entity on, one deleted later in the chunk has its delete event
+        for (MoviesEntity update : updated) {
+            if (entityManager.contains(update)) {
+                eventPublisher.publishEvent(MovieChangedEvent.updated(new Movie(update), update.getVersion()));
+            }
+        }
+        for (int i = 0; i < created.length; i++) {
+            if (created[i] != null) {
+                results[i].setId(created[i].getId());
+                eventPublisher.publishEvent(MovieChangedEvent.created(new Movie(created[i])));
+            }
+        }
+        entityManager.clear();
+        return results;
+    }
+
+    private BulkItemResult applyBulkOperationAlone(List<BulkOperation> operations, int index) {
+        BulkOperation operation = operations.get(index);
         try {
-            moviesRepository.delete(moviesEntity.get());
-            return new ResponseEntity<>(null, HttpStatus.OK);
-        } catch (Exception e){
-            VoidResponse response = new VoidResponse();
-            response.setError(e.getCause().toString());
+            return writeTransaction.execute(status -> applyBulkChunk(operations, Collections.singletonList(index)))[0];
+        } catch (RuntimeException e) {
+            BulkItemResult result = new BulkItemResult(operation.getOp(), operation.getId(), HttpStatus.INTERNAL_SERVER_ERROR.value());
+            result.setError(String.valueOf(e.getCause() == null ? e : e.getCause()));
+            return result;
+        }
+    }
+
+    /**
+     * Import new movies from an ndjson or csv body
+     * the body is read as it arrives and written in batches, see MovieImporter. Invalid rows are rejected with the
+     * errors a single create would have answered with, the response counts them and lists the first ones.
+     * 400 only when the body as a whole is unreadable before anything was imported, e.g. a csv header without the title,
+     * category and rating columns. An import failing part way is a 500 with the counts of what got in and the error
+     * @param body utf-8
+     * @param format
+     * @return
+     */
+    @Override
+    public ResponseEntity<ImportResponse> importMovies(InputStream body, CatalogFormat format) {
+        ImportResponse response;
+        try {
+            response = movieImporter.importMovies(new InputStreamReader(body, StandardCharsets.UTF_8), format);
+        } catch (IllegalArgumentException e) {
+            response = new ImportResponse();
+            response.setErrors(ValidationError.of("body", e.getMessage()).toErrors());
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (response.getError() != null) {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
+        return ResponseEntity.ok(response);
     }
 
-    private void validateRating(String ratingInput){
-        Float[] rating = {0.5f,1.0f,1.5f,2.0f,2.5f,3.0f,3.5f,4.0f,4.5f,5f};
-        if(Arrays.stream(rating).noneMatch(aFloat -> aFloat.equals(Float.valueOf(ratingInput)))){
-            List<Map<String,String>> errors = new ArrayList<>(){{
-                add(new HashMap<>(){{
-                    put("rating","Allowed rating 0.5,1.0,1.5,2.0,2.5,3.0,3.5,4.0,4.5,5");
-                }});
-            }};
-            throw new InvalidRating(errors);
+    /**
+     * Export the catalog in id order as ndjson or csv, gzip compressed on the fly when Accept-Encoding allows it
+     * the body is written as rows come off the cursor, see MovieExporter. A client that lost the connection asks
+     * again with after set to the id of the last complete row it received and gets the rest
+     * @param format ndjson (default) or csv
+     * @param after exclusive, null for the whole catalog
+     * @param acceptEncoding
+     * @return
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportMovies(String format, Long after, String acceptEncoding) {
+        Optional<CatalogFormat> catalogFormat = CatalogFormat.fromParam(format);
+        if (catalogFormat.isEmpty()) {
+            return exportError(INVALID_EXPORT_FORMAT);
+        }
+        if (after != null && after < 0) {
+            return exportError(INVALID_EXPORT_AFTER);
+        }
+        long afterId = after == null ? 0 : after;
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(catalogFormat.get().getMediaType()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return response.body(outputStream -> movieExporter.export(outputStream, catalogFormat.get(), afterId, gzip));
+    }
+
+    //the export's 400 is written by the streaming body too, the endpoint has a single body type
+    private ResponseEntity<StreamingResponseBody> exportError(ValidationError error) {
+        VoidResponse response = new VoidResponse();
+        response.setErrors(error.toErrors());
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> errorWriter.writeValue(outputStream, response));
+    }
+
+    //an explicit gzip entry decides by its q-value, * only counts when gzip is not listed (rfc 7231 5.3.4)
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                refused |= parameter.matches("[qQ]=0(\\.0{0,3})?");
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                return !refused;
+            }
+            if (any == null) {
+                any = !refused;
+            }
+        }
+        return any != null && any;
+    }
+
+    static boolean isRatingBound(Float rating){
+        return rating == null || (rating >= MIN_RATING && rating <= MAX_RATING);
     }
 
-    private List<Map<String,String>> getErrorsFromBind(BindingResult result){
-        List<Map<String,String>> errors = new ArrayList<>();
-        result.getFieldErrors().iterator().forEachRemaining(fieldError -> {
-            Map<String,String> error = new HashMap<>();
-            error.put(fieldError.getField(),fieldError.getDefaultMessage());
-            errors.add(error);
-        });
-        return errors;
+    //If-Match: * only asks for the movie to exist, which the row count already answers
+    static boolean isVersionCheck(Long expectedVersion){
+        return expectedVersion != null && expectedVersion >= 0;
     }
 }
@@ -0,0 +1,5 @@
+-- Ratings move from a FLOAT of stars to a TINYINT of half stars (0.5 -> 1 ... 5.0 -> 10, 0 when missing)
+-- MySQL, run once with the application stopped, the two statements are not atomic together
+UPDATE movies_entity SET rating = COALESCE(ROUND(rating * 2), 0);
+-- the rating indexes are rebuilt by the column change
+ALTER TABLE movies_entity MODIFY COLUMN rating TINYINT NOT NULL;
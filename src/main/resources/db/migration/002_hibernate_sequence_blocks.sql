@@ -0,0 +1,7 @@
+-- Movie ids are reserved from hibernate_sequence MoviesEntity.ID_BLOCK_SIZE (1000) at a time instead of one per insert
+-- MySQL, run once with the application stopped. The sequence is a table holding the next value only, every reservation
+-- adds the block size itself so nothing about the increment is stored. This only makes sure the first block starts
+-- after every id handed out so far
+UPDATE hibernate_sequence SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 1 FROM movies_entity));
+-- a database with real sequences (h2) keeps the increment in the sequence, it has to be the block size there
+-- ALTER SEQUENCE hibernate_sequence INCREMENT BY 1000;
@@ -0,0 +1,4 @@
+-- Titles sort byte by byte (the binary collation of the column's character set) instead of ignoring case, the order
+-- the movie list pages of several shards are merged in, see MovieSort.comparator
+-- MySQL, run once on every database (each shard when sharded), idx_movies_title_id is rebuilt by the column change
+ALTER TABLE movies_entity MODIFY COLUMN title VARCHAR(255) BINARY;
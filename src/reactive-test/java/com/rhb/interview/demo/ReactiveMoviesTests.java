@@ -0,0 +1,170 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.impl.ETags;
+import com.rhb.interview.demo.service.impl.MovieStatistics;
+import com.rhb.interview.demo.service.impl.MovieTitleIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The /movies contract served by webflux and r2dbc, against h2's r2dbc driver
+ */
+//the web application type is repeated here, the test context decides it before profile properties are read
+@SpringBootTest(properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive"})
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+class ReactiveMoviesTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private MovieTitleIndex movieTitleIndex;
+
+    @Autowired
+    private MovieStatistics movieStatistics;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+        movieTitleIndex.rebuild();
+        movieStatistics.rebuild();
+    }
+
+    @Test
+    void test_create_get_update_delete() {
+        create("{\"title\":\"Heat\",\"category\":\"crime\",\"rating\":\"4.5\"}");
+        MoviesEntity saved = moviesRepository.findAll().get(0);
+        assertEquals(9, saved.getRatingHalfStars());
+        String etag = ETags.ofVersion(saved.getVersion());
+
+        webTestClient.get().uri("/movies/" + saved.getId()).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Heat")
+                .jsonPath("$.rating").isEqualTo(4.5);
+        webTestClient.get().uri("/movies/" + saved.getId()).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.put().uri("/movies/" + saved.getId()).header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"title\":\"Heat\",\"category\":\"crime\",\"rating\":\"5\"}").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETags.ofVersion(saved.getVersion() + 1));
+        webTestClient.put().uri("/movies/" + saved.getId()).header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"title\":\"Heat\",\"category\":\"crime\",\"rating\":\"1\"}").exchange()
+                .expectStatus().isEqualTo(412);
+
+        webTestClient.delete().uri("/movies/" + saved.getId()).header(HttpHeaders.IF_MATCH, etag).exchange()
+                .expectStatus().isEqualTo(412);
+        webTestClient.delete().uri("/movies/" + saved.getId()).exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/movies/" + saved.getId()).exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/movies/" + saved.getId()).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void test_invalid_requests_get_the_same_errors() {
+        webTestClient.post().uri("/movies").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"title\":\"\",\"category\":\"drama\",\"rating\":\"1.0\"}").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].title").isEqualTo("Title cannot be blank");
+        webTestClient.post().uri("/movies").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"title\":\"t\",\"category\":\"drama\",\"rating\":\"0.55\"}").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].rating").exists();
+        webTestClient.get().uri("/movies?limit=0").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].limit").exists();
+        webTestClient.get().uri("/movies?after=nonsense").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].after").exists();
+        assertEquals(0, moviesRepository.count());
+    }
+
+    @Test
+    void test_pages_filters_and_catalog_etag() {
+        for (int i = 1; i <= 5; i++) {
+            create("{\"title\":\"movie " + i + "\",\"category\":\"" + (i % 2 == 0 ? "even" : "odd") + "\",\"rating\":\"" + i + "\"}");
+        }
+
+        String etag = webTestClient.get().uri("/movies?sort=rating&limit=2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.movies[*].title").value(contains("movie 1", "movie 2"))
+                .returnResult().getResponseHeaders().getETag();
+        String cursor = webTestClient.get().uri("/movies?sort=rating&limit=2").exchange()
+                .expectBody(String.class).returnResult().getResponseBody().replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        webTestClient.get().uri("/movies?sort=rating&limit=2&after=" + cursor).exchange()
+                .expectBody().jsonPath("$.movies[*].title").value(contains("movie 3", "movie 4"));
+        webTestClient.get().uri("/movies?category=odd&minRating=2&maxRating=5").exchange()
+                .expectBody().jsonPath("$.movies[*].title").value(contains("movie 3", "movie 5"))
+                .jsonPath("$.nextCursor").doesNotExist();
+
+        webTestClient.get().uri("/movies").header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified();
+        create("{\"title\":\"movie 6\",\"category\":\"even\",\"rating\":\"3\"}");
+        webTestClient.get().uri("/movies").header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void test_stream_search_and_stats_follow_reactive_writes() {
+        create("{\"title\":\"Alien\",\"category\":\"scifi\",\"rating\":\"4\"}");
+        create("{\"title\":\"Aliens\",\"category\":\"scifi\",\"rating\":\"5\"}");
+
+        Flux<Movie> streamed = webTestClient.get().uri("/movies").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Movie.class).getResponseBody();
+        StepVerifier.create(streamed.map(Movie::getTitle))
+                .expectNext("Alien", "Aliens")
+                .verifyComplete();
+
+        webTestClient.get().uri("/movies/search?q=alien").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.movies[*].title").value(contains("Alien", "Aliens"));
+        webTestClient.get().uri("/movies/stats").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.movies").isEqualTo(2)
+                .jsonPath("$.categories[0].meanRating").isEqualTo(4.5);
+
+        List<MoviesEntity> movies = moviesRepository.findAll();
+        webTestClient.delete().uri("/movies/" + movies.get(0).getId()).exchange().expectStatus().isOk();
+        webTestClient.get().uri("/movies/stats").exchange()
+                .expectBody().jsonPath("$.movies").isEqualTo(1);
+    }
+
+    private void create(String body) {
+        webTestClient.post().uri("/movies").contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange()
+                .expectStatus().isCreated();
+    }
+}
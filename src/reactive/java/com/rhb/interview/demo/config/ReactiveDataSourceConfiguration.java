@@ -0,0 +1,27 @@
+package com.rhb.interview.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+
+/**
+ * Jdbc DataSource of the reactive profile
+ * spring boot backs off its DataSource as soon as an r2dbc ConnectionFactory exists, the reactive profile
+ * still needs one for hibernate to create the schema and for the index and statistics builds at startup.
+ * Built from spring.datasource.* like the one boot would have created
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,173 @@
+package com.rhb.interview.demo.controller;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieFilter;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.dto.MovieStatisticsResponse;
+import com.rhb.interview.demo.dto.MoviesResponse;
+import com.rhb.interview.demo.dto.VoidResponse;
+import com.rhb.interview.demo.service.ReactiveMoviesService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * /movies on webflux for the reactive profile, same paths, parameters and responses as MoviesController
+ * apart from _bulk which is only served by the servlet stack. Requests are validated by the service
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping(value = "/movies")
+public class ReactiveMoviesController {
+
+    //Service layer
+    private final ReactiveMoviesService moviesService;
+
+    @Autowired
+    public ReactiveMoviesController(ReactiveMoviesService moviesService) {
+        this.moviesService = moviesService;
+    }
+
+    @PostMapping(value = {"", "/"}, consumes = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Create a movie")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Movie created",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", description = "Invalid movie supplied",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = VoidResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Unknown Server Error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = VoidResponse.class))})})
+    public Mono<ResponseEntity<VoidResponse>> create(@RequestBody MovieRequest request) {
+        return moviesService.createMovie(request);
+    }
+
+    @GetMapping(value = {"", "/"}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Get a page of movies, optionally of one category and within a rating range. " +
+            "Pass nextCursor back as after, with the same filters and sort, to get the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movies returned",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))}),
+            @ApiResponse(responseCode = "304", description = "No movie changed since the etag in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, limit, cursor or sort supplied",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))})})
+    public Mono<ResponseEntity<MoviesResponse>> getList(@RequestParam(value = "category", required = false) String category,
+                                                        @RequestParam(value = "minRating", required = false) Float minRating,
+                                                        @RequestParam(value = "maxRating", required = false) Float maxRating,
+                                                        @RequestParam(value = "limit", required = false) Integer limit,
+                                                        @RequestParam(value = "after", required = false) String after,
+                                                        @RequestParam(value = "sort", required = false) String sort,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return moviesService.getMovies(new MovieFilter(category, minRating, maxRating), limit, after, sort, ifNoneMatch);
+    }
+
+    @GetMapping(value = {"", "/"}, produces = {MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Stream every movie in id order, one json document per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movies streamed",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = Movie.class))})})
+    public ResponseEntity<Flux<Movie>> streamList() {
+        return moviesService.streamMovies();
+    }
+
+    @GetMapping(value = {"/search"}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Search movies whose title contains q, ignoring case, best matches first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching movies returned",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Query shorter than 3 characters or invalid limit",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))}),
+            @ApiResponse(responseCode = "503", description = "Search index still being built",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MoviesResponse.class))})})
+    public Mono<ResponseEntity<MoviesResponse>> search(@RequestParam(value = "q", required = false) String query,
+                                                       @RequestParam(value = "limit", required = false) Integer limit) {
+        return moviesService.searchMovies(query, limit);
+    }
+
+    @GetMapping(value = {"/stats"}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Count, mean rating and half star rating histogram per category")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics returned",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieStatisticsResponse.class))}),
+            @ApiResponse(responseCode = "503", description = "Statistics still being built",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieStatisticsResponse.class))})})
+    public Mono<ResponseEntity<MovieStatisticsResponse>> statistics() {
+        return moviesService.getStatistics();
+    }
+
+    @GetMapping(value = {"/{id}"}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Get a movie")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movie retrieved",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieResponse.class))}),
+            @ApiResponse(responseCode = "304", description = "Movie unchanged since the etag in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Movie not found",
+                    content = @Content)})
+    public Mono<ResponseEntity<MovieResponse>> getMovie(@PathVariable(value = "id") String id,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return moviesService.getMovie(id, ifNoneMatch);
+    }
+
+    @PutMapping(value = {"/{id}"}, consumes = {MediaType.APPLICATION_JSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Update a movie")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movie updated",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid movie supplied",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieResponse.class))}),
+            @ApiResponse(responseCode = "404", description = "Movie not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Movie changed since the etag in If-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Unknown Server Error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MovieResponse.class))})})
+    public Mono<ResponseEntity<MovieResponse>> updateMovie(@PathVariable(value = "id") String id,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                           @RequestBody MovieRequest request) {
+        return moviesService.updateMovie(id, ifMatch, request);
+    }
+
+    @DeleteMapping(value = {"/{id}"}, produces = {MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Delete a movie")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movie deleted",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = VoidResponse.class))}),
+            @ApiResponse(responseCode = "404", description = "Movie not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Movie changed since the etag in If-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Unknown Server Error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = VoidResponse.class))})})
+    public Mono<ResponseEntity<VoidResponse>> deleteMovie(@PathVariable(value = "id") String id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return moviesService.deleteMovie(id, ifMatch);
+    }
+}
@@ -0,0 +1,203 @@
+package com.rhb.interview.demo.repository.repository;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieCursor;
+import com.rhb.interview.demo.dto.MovieFilter;
+import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.dto.MovieSort;
+import com.rhb.interview.demo.repository.entity.IdBlock;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Non blocking counterpart of MoviesRepository for the reactive profile, same table and same statements
+ * written as sql over r2dbc. The schema itself is still created by hibernate.
+ * Every method is a single statement in auto commit, a row is committed once its Mono completes
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveMoviesRepository {
+    private static final String COLUMNS = "id, title, category, rating";
+
+    private final DatabaseClient databaseClient;
+
+    private volatile IdBlock ids = IdBlock.EMPTY;
+
+    @Autowired
+    public ReactiveMoviesRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * Insert a movie at version 0, the id comes from a block of the sequence hibernate generates ids from
+     * @return the new id
+     */
+    public Mono<Long> insert(String title, String category, byte ratingHalfStars) {
+        return nextId().flatMap(id -> databaseClient
+                .sql("insert into movies_entity (id, title, category, rating, version) values (:id, :title, :category, :rating, 0)")
+                .bind("id", id)
+                .bind("title", title)
+                .bind("category", category)
+                .bind("rating", ratingHalfStars)
+                .fetch().rowsUpdated()
+                .thenReturn(id));
+    }
+
+    /**
+     * Pooled-lo as MovieIdGenerator, a value of the sequence is the first of MoviesEntity.ID_BLOCK_SIZE ids.
+     * Callers finding the block used up at the same time each reserve one, all but the last block published
+     * are left with unused ids, a gap and never a duplicate
+     */
+    private Mono<Long> nextId() {
+        long id = ids.next();
+        if (id != IdBlock.EXHAUSTED) {
+            return Mono.just(id);
+        }
+        //h2 sequence syntax, the reactive profile runs against h2 only (see application-reactive.properties)
+        return databaseClient.sql("select next value for hibernate_sequence")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(lo -> {
+                    IdBlock block = new IdBlock(lo, lo + MoviesEntity.ID_BLOCK_SIZE);
+                    ids = block;
+                    return block.next();
+                });
+    }
+
+    /**
+     * Same page as MoviesRepositoryCustom.findPage, filters and the keyset seek in the where clause
+     */
+    public Flux<Movie> findPage(MovieFilter filter, MovieSort sort, MovieCursor after, int limit) {
+        StringBuilder sql = new StringBuilder("select " + COLUMNS + " from movies_entity");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (filter.getCategory() != null) {
+            and(sql, parameters).append("category = :category");
+            parameters.put("category", filter.getCategory());
+        }
+        //bounds in stars become the half stars they include
+        if (filter.getMinRating() != null) {
+            and(sql, parameters).append("rating >= :minRating");
+            parameters.put("minRating", (byte) Math.ceil(filter.getMinRating() * 2));
+        }
+        if (filter.getMaxRating() != null) {
+            and(sql, parameters).append("rating <= :maxRating");
+            parameters.put("maxRating", (byte) Math.floor(filter.getMaxRating() * 2));
+        }
+
+        switch (sort) {
+            case TITLE:
+                if (after != null) {
+                    and(sql, parameters).append("(title > :afterKey or (title = :afterKey and id > :afterId))");
+                    parameters.put("afterKey", after.getKey());
+                    parameters.put("afterId", after.getId());
+                }
+                sql.append(" order by title, id");
+                break;
+            case RATING:
+                if (after != null) {
+                    and(sql, parameters).append("(rating > :afterKey or (rating = :afterKey and id > :afterId))");
+                    parameters.put("afterKey", Byte.valueOf(after.getKey()));
+                    parameters.put("afterId", after.getId());
+                }
+                sql.append(" order by rating, id");
+                break;
+            default:
+                if (after != null) {
+                    and(sql, parameters).append("id > :afterId");
+                    parameters.put("afterId", after.getId());
+                }
+                sql.append(" order by id");
+        }
+        sql.append(" limit ").append(limit);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec.map(ReactiveMoviesRepository::movie).all();
+    }
+
+    private static StringBuilder and(StringBuilder sql, Map<String, Object> parameters) {
+        return sql.append(parameters.isEmpty() ? " where " : " and ");
+    }
+
+    /**
+     * Every movie in id order, rows are emitted as the driver receives them and follow the subscriber's demand
+     */
+    public Flux<Movie> streamAllOrderById() {
+        return databaseClient.sql("select " + COLUMNS + " from movies_entity order by id")
+                .map(ReactiveMoviesRepository::movie)
+                .all();
+    }
+
+    public Mono<MovieResponse> findResponseById(Long id) {
+        return databaseClient.sql("select " + COLUMNS + ", version from movies_entity where id = :id")
+                .bind("id", id)
+                .map(row -> new MovieResponse(row.get("id", Long.class), row.get("title", String.class),
+                        row.get("category", String.class), row.get("rating", Byte.class), row.get("version", Long.class)))
+                .one();
+    }
+
+    /**
+     * @return rows updated, 0 when there is no movie with the id
+     */
+    public Mono<Integer> updateById(Long id, String title, String category, byte ratingHalfStars) {
+        return databaseClient.sql("update movies_entity set title = :title, category = :category, rating = :rating, version = version + 1 " +
+                        "where id = :id")
+                .bind("id", id)
+                .bind("title", title)
+                .bind("category", category)
+                .bind("rating", ratingHalfStars)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * Same as updateById but only when the movie is still at the given version (If-Match)
+     * @return rows updated, 0 when the movie does not exist or has moved on
+     */
+    public Mono<Integer> updateByIdAndVersion(Long id, long version, String title, String category, byte ratingHalfStars) {
+        return databaseClient.sql("update movies_entity set title = :title, category = :category, rating = :rating, version = version + 1 " +
+                        "where id = :id and version = :version")
+                .bind("id", id)
+                .bind("version", version)
+                .bind("title", title)
+                .bind("category", category)
+                .bind("rating", ratingHalfStars)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * @return rows deleted, 0 when there is no movie with the id
+     */
+    public Mono<Integer> deleteMovieById(Long id) {
+        return databaseClient.sql("delete from movies_entity where id = :id")
+                .bind("id", id)
+                .fetch().rowsUpdated();
+    }
+
+    /**
+     * Same as deleteMovieById but only when the movie is still at the given version (If-Match)
+     * @return rows deleted, 0 when the movie does not exist or has moved on
+     */
+    public Mono<Integer> deleteByIdAndVersion(Long id, long version) {
+        return databaseClient.sql("delete from movies_entity where id = :id and version = :version")
+                .bind("id", id)
+                .bind("version", version)
+                .fetch().rowsUpdated();
+    }
+
+    private static Movie movie(Row row) {
+        return new Movie(row.get("id", Long.class), row.get("title", String.class),
+                row.get("category", String.class), row.get("rating", Byte.class));
+    }
+}
@@ -0,0 +1,26 @@
+package com.rhb.interview.demo.service;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.dto.MovieFilter;
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.dto.MovieStatisticsResponse;
+import com.rhb.interview.demo.dto.MoviesResponse;
+import com.rhb.interview.demo.dto.VoidResponse;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * MoviesService for the reactive profile, same responses but nothing blocks the calling thread
+ */
+public interface ReactiveMoviesService {
+    Mono<ResponseEntity<VoidResponse>> createMovie(MovieRequest movieRequest);
+    Mono<ResponseEntity<MoviesResponse>> getMovies(MovieFilter filter, Integer limit, String after, String sort, String ifNoneMatch);
+    ResponseEntity<Flux<Movie>> streamMovies();
+    Mono<ResponseEntity<MoviesResponse>> searchMovies(String query, Integer limit);
+    Mono<ResponseEntity<MovieStatisticsResponse>> getStatistics();
+    Mono<ResponseEntity<MovieResponse>> getMovie(String id, String ifNoneMatch);
+    Mono<ResponseEntity<MovieResponse>> updateMovie(String id, String ifMatch, MovieRequest movieRequest);
+    Mono<ResponseEntity<VoidResponse>> deleteMovie(String id, String ifMatch);
+}
@@ -0,0 +1,313 @@
+package com.rhb.interview.demo.service.impl;
+
+import com.rhb.interview.demo.dto.*;
+import com.rhb.interview.demo.repository.repository.ReactiveMoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import com.rhb.interview.demo.service.ReactiveMoviesService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.rhb.interview.demo.service.impl.MoviesServiceImpl.*;
+
+/**
+ * MoviesServiceImpl over r2dbc, for the reactive profile
+ * validation, limits, etags and error bodies are the same as the servlet service. Writes are single statements
+ * in auto commit so MovieChangedEvent is published once the statement completes, which keeps the catalog
+ * version, title index and statistics current exactly like a commit does on the servlet side.
+ * Single movie lookups skip the movie cache, it loads synchronously and would block the event loop
+ */
+@Service
+@Profile("reactive")
+public class ReactiveMoviesServiceImpl implements ReactiveMoviesService {
+
+    private final ReactiveMoviesRepository moviesRepository;
+
+    private final Validator validator;
+
+    private final CatalogVersion catalogVersion;
+
+    private final MovieTitleIndex movieTitleIndex;
+
+    private final MovieStatistics movieStatistics;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ReactiveMoviesServiceImpl(ReactiveMoviesRepository moviesRepository, Validator validator,
+                                     CatalogVersion catalogVersion, MovieTitleIndex movieTitleIndex,
+                                     MovieStatistics movieStatistics, ApplicationEventPublisher eventPublisher) {
+        this.moviesRepository = moviesRepository;
+        this.validator = validator;
+        this.catalogVersion = catalogVersion;
+        this.movieTitleIndex = movieTitleIndex;
+        this.movieStatistics = movieStatistics;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Create movie api
+     * validated like the servlet api, then one insert
+     * @param movieRequest
+     * @return
+     */
+    @Override
+    public Mono<ResponseEntity<VoidResponse>> createMovie(MovieRequest movieRequest) {
+        VoidResponse response = new VoidResponse();
+        ValidationResult validation = validate(movieRequest);
+        if(!validation.isValid()){
+            response.setErrors(validation.getErrors());
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+
+        byte rating = Ratings.parse(movieRequest.getRating());
+        return moviesRepository.insert(movieRequest.getTitle(), movieRequest.getCategory(), rating)
+                .map(id -> {
+                    eventPublisher.publishEvent(MovieChangedEvent.created(new Movie(id, movieRequest.getTitle(), movieRequest.getCategory(), rating)));
+                    return ResponseEntity.status(HttpStatus.CREATED).<VoidResponse>body(null);
+                })
+                .onErrorResume(e -> Mono.just(serverError(response, e)));
+    }
+
+    /**
+     * Get movies list api
+     * same page, filters, keyset cursor and catalog etag as the servlet api
+     * @param filter
+     * @param limit
+     * @param after
+     * @param sort
+     * @param ifNoneMatch
+     * @return
+     */
+    @Override
+    public Mono<ResponseEntity<MoviesResponse>> getMovies(MovieFilter filter, Integer limit, String after, String sort, String ifNoneMatch) {
+        String etag = catalogVersion.etag();
+        MoviesResponse response = new MoviesResponse();
+        if (!isRatingBound(filter.getMinRating()) || !isRatingBound(filter.getMaxRating())
+                || (filter.getMinRating() != null && filter.getMaxRating() != null && filter.getMinRating() > filter.getMaxRating())) {
+            response.setErrors(INVALID_RATING_RANGE.toErrors());
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            response.setErrors(INVALID_PAGE_SIZE.toErrors());
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+        Optional<MovieSort> movieSort = MovieSort.fromParam(sort);
+        if (movieSort.isEmpty()) {
+            response.setErrors(INVALID_SORT.toErrors());
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+        MovieCursor cursor = null;
+        if (after != null && !after.isEmpty()) {
+            cursor = MovieCursor.decode(after).filter(c -> c.getSort() == movieSort.get()).orElse(null);
+            if (cursor == null) {
+                response.setErrors(ValidationError.of("after", "Invalid cursor for sort " + movieSort.get().getProperty()).toErrors());
+                return Mono.just(ResponseEntity.badRequest().body(response));
+            }
+        }
+        if (ETags.noneMatchFails(ifNoneMatch, etag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+
+        //one extra row tells us whether there is a next page without a count query
+        return moviesRepository.findPage(filter, movieSort.get(), cursor, pageSize + 1)
+                .collectList()
+                .map(page -> {
+                    List<Movie> movies = page.size() > pageSize ? page.subList(0, pageSize) : page;
+                    response.setMovies(movies);
+                    if (page.size() > pageSize) {
+                        response.setNextCursor(MovieCursor.of(movieSort.get(), movies.get(movies.size() - 1)).encode());
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(response);
+                });
+    }
+
+    /**
+     * Stream every movie as ndjson
+     * rows are written as the driver hands them over and the query only reads ahead as far as the client consumes
+     * @return
+     */
+    @Override
+    public ResponseEntity<Flux<Movie>> streamMovies() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(moviesRepository.streamAllOrderById());
+    }
+
+    /**
+     * Search movies by title, answered from the in memory title index like the servlet api
+     * @param query
+     * @param limit
+     * @return
+     */
+    @Override
+    public Mono<ResponseEntity<MoviesResponse>> searchMovies(String query, Integer limit) {
+        MoviesResponse response = new MoviesResponse();
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.length() < MovieTitleIndex.GRAM_LENGTH) {
+            response.setErrors(INVALID_QUERY.toErrors());
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+        int size = limit == null ? DEFAULT_SEARCH_SIZE : limit;
+        if (size < 1 || size > MAX_SEARCH_SIZE) {
+            response.setErrors(INVALID_SEARCH_SIZE.toErrors());
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+        if (!movieTitleIndex.isReady()) {
+            response.setError("Search index is being built, try again shortly");
+            return Mono.just(new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        response.setMovies(movieTitleIndex.search(trimmed, size));
+        return Mono.just(ResponseEntity.ok(response));
+    }
+
+    /**
+     * Statistics per category from the in memory counters like the servlet api
+     * @return
+     */
+    @Override
+    public Mono<ResponseEntity<MovieStatisticsResponse>> getStatistics() {
+        MovieStatisticsResponse response = new MovieStatisticsResponse();
+        if (!movieStatistics.isReady()) {
+            response.setError("Statistics are being built, try again shortly");
+            return Mono.just(new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        List<CategoryStatistics> categories = movieStatistics.categories();
+        long movies = 0;
+        for (CategoryStatistics category : categories) {
+            movies += category.getCount();
+        }
+        response.setMovies(movies);
+        response.setCategories(categories);
+        return Mono.just(ResponseEntity.ok(response));
+    }
+
+    /**
+     * Get a single movie
+     * 404 when it does not exist, the etag is the movie version and a matching If-None-Match gets 304
+     * @param id
+     * @param ifNoneMatch
+     * @return
+     */
+    @Override
+    public Mono<ResponseEntity<MovieResponse>> getMovie(String id, String ifNoneMatch) {
+        return moviesRepository.findResponseById(Long.valueOf(id))
+                .map(movie -> {
+                    String etag = ETags.ofVersion(movie.getVersion());
+                    if(ETags.noneMatchFails(ifNoneMatch, etag)){
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<MovieResponse>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(movie);
+                })
+                .defaultIfEmpty(new ResponseEntity<>(null, HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Update a movie
+     * one update statement, with If-Match the version is part of the where clause and no rows updated is a 412
+     * then the row is read back for the change event, see published
+     * @param id
+     * @param ifMatch
+     * @param movieRequest
+     * @return
+     */
+    @Override
+    public Mono<ResponseEntity<MovieResponse>> updateMovie(String id, String ifMatch, MovieRequest movieRequest) {
+        //if is somehow missing
+        if(id==null||id.isEmpty()){
+            return Mono.just(new ResponseEntity<>(null,HttpStatus.NOT_FOUND));
+        }
+        Long expectedVersion = ifMatch == null ? null : ETags.versionOf(ifMatch);
+        if(ifMatch != null && expectedVersion == null){
+            return Mono.just(new ResponseEntity<>(null,HttpStatus.PRECONDITION_FAILED));
+        }
+
+        MovieResponse response = new MovieResponse();
+        ValidationResult validation = validate(movieRequest);
+        if(!validation.isValid()){
+            response.setErrors(validation.getErrors());
+            return Mono.just(ResponseEntity.badRequest().body(response));
+        }
+
+        Movie update = new Movie(Long.valueOf(id), movieRequest.getTitle(), movieRequest.getCategory(), Ratings.parse(movieRequest.getRating()));
+        Mono<Integer> updated = isVersionCheck(expectedVersion)
+                ? moviesRepository.updateByIdAndVersion(update.getId(), expectedVersion, update.getTitle(), update.getCategory(), update.getRatingHalfStars())
+                : moviesRepository.updateById(update.getId(), update.getTitle(), update.getCategory(), update.getRatingHalfStars());
+        return updated
+                .flatMap(rows -> {
+                    if(rows == 0){
+                        return Mono.just(ResponseEntity.status(ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED).<MovieResponse>build());
+                    }
+                    return published(update.getId()).then(Mono.fromSupplier(() -> {
+                        if(isVersionCheck(expectedVersion)){
+                            return ResponseEntity.ok().eTag(ETags.ofVersion(expectedVersion + 1)).<MovieResponse>build();
+                        }
+                        return ResponseEntity.status(HttpStatus.OK).<MovieResponse>build();
+                    }));
+                })
+                .onErrorResume(e -> Mono.just(serverError(response, e)));
+    }
+
+    /**
+     * Delete a movie
+     * one delete statement, with If-Match the version is part of the where clause and no rows deleted is a 412
+     * @param id
+     * @param ifMatch
+     * @return
+     */
+    @Override
+    public Mono<ResponseEntity<VoidResponse>> deleteMovie(String id, String ifMatch) {
+        Long movieId = Long.valueOf(id);
+        Long expectedVersion = ifMatch == null ? null : ETags.versionOf(ifMatch);
+        if(ifMatch != null && expectedVersion == null){
+            return Mono.just(new ResponseEntity<>(null,HttpStatus.PRECONDITION_FAILED));
+        }
+        Mono<Integer> deleted = isVersionCheck(expectedVersion)
+                ? moviesRepository.deleteByIdAndVersion(movieId, expectedVersion)
+                : moviesRepository.deleteMovieById(movieId);
+        return deleted
+                .map(rows -> {
+                    if(rows == 0){
+                        return ResponseEntity.status(ifMatch == null ? HttpStatus.NOT_FOUND : HttpStatus.PRECONDITION_FAILED).<VoidResponse>build();
+                    }
+                    eventPublisher.publishEvent(MovieChangedEvent.deleted(movieId));
+                    return ResponseEntity.status(HttpStatus.OK).<VoidResponse>build();
+                })
+                .onErrorResume(e -> Mono.just(serverError(new VoidResponse(), e)));
+    }
+
+    /**
+     * Publishes the movie as it is now, read back with its version: the update committed on its own and another
+     * one may already have followed it. Nothing when it has been deleted since, its delete has an event of its own
+     */
+    private Mono<Void> published(Long id) {
+        return moviesRepository.findResponseById(id)
+                .doOnNext(movie -> eventPublisher.publishEvent(MovieChangedEvent.updated(
+                        new Movie(movie.getId(), movie.getTitle(), movie.getCategory(), movie.getRatingHalfStars()), movie.getVersion())))
+                .then();
+    }
+
+    //webflux has no BindingResult for request bodies, the bean validation annotations are checked here instead
+    private ValidationResult validate(MovieRequest movieRequest) {
+        Set<ConstraintViolation<MovieRequest>> violations = validator.validate(movieRequest);
+        return violations.isEmpty()
+                ? MovieValidation.validateRating(movieRequest.getRating())
+                : MovieValidation.fromViolations(violations);
+    }
+
+    private static <T extends AbstractRestResponse> ResponseEntity<T> serverError(T response, Throwable e) {
+        response.setError(String.valueOf(e.getCause() == null ? e : e.getCause()));
+        return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
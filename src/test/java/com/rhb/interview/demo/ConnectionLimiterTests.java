@@ -0,0 +1,166 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.config.ConnectionLimiter;
+import com.rhb.interview.demo.config.LimitedDataSource;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:limiter",
+        "movies.connection-limiter.enabled=true",
+        "movies.connection-limiter.max-concurrent=2",
+        "movies.connection-limiter.timeout=500ms"})
+@AutoConfigureMockMvc
+class ConnectionLimiterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ConnectionLimiter connectionLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_callers_beyond_the_limit_queue_until_a_connection_is_closed() throws Exception {
+        assertTrue(dataSource instanceof LimitedDataSource);
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        CompletableFuture<Connection> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (connectionLimiter.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        assertFalse(third.isDone());
+        assertEquals(1, connectionLimiter.statistics().get("waiting"));
+
+        first.close();
+        //closing twice must not hand out a second permit
+        first.close();
+        third.get(5, TimeUnit.SECONDS).close();
+        second.close();
+
+        assertEquals(0, connectionLimiter.statistics().get("inUse"));
+        assertTrue((long) connectionLimiter.statistics().get("queued") >= 1);
+        assertTrue((long) connectionLimiter.statistics().get("maxWaitNanos") > 0);
+    }
+
+    @Test
+    void test_waiting_past_the_timeout_fails_like_the_pool_would() throws Exception {
+        long timeouts = (long) connectionLimiter.statistics().get("timeouts");
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        }
+        assertEquals(timeouts + 1, connectionLimiter.statistics().get("timeouts"));
+        assertEquals(0, connectionLimiter.statistics().get("inUse"));
+    }
+
+    @Test
+    void test_requests_go_through_the_limiter() throws Exception {
+        long acquired = (long) connectionLimiter.statistics().get("acquired");
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"limited\",\"category\":\"drama\",\"rating\":\"3.0\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(jsonPath("$.movies[0].title", is("limited")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/connectionlimiter"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxConcurrent", is(2)))
+                .andExpect(jsonPath("$.inUse", is(0)))
+                .andExpect(jsonPath("$.acquired", greaterThan((int) acquired)));
+    }
+
+    @Test
+    void test_limiter_and_pool_meters_are_bound() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(1, meterRegistry.get("movies.connection.limiter.in.use").gauge().value());
+            assertEquals(2, meterRegistry.get("movies.connection.limiter.max.concurrent").gauge().value());
+        }
+        assertTrue(meterRegistry.get("movies.connection.limiter.acquired").functionCounter().count() >= 1);
+        meterRegistry.get("movies.connection.limiter.wait").functionTimer();
+        //hikari is still found behind the limiter
+        meterRegistry.get("hikaricp.connections.pending").gauge();
+    }
+
+    @Test
+    @EnabledIf("virtualThreadsAvailable")
+    void test_virtual_threads_profile_runs_work_on_virtual_threads() throws Exception {
+        try (ConfigurableApplicationContext context = virtualThreadsApplication().run()) {
+            AsyncTaskExecutor executor = context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class);
+            assertTrue((Boolean) executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get());
+            assertTrue(context.getBean(DataSource.class) instanceof LimitedDataSource);
+        }
+    }
+
+    @Test
+    @EnabledIf("virtualThreadsUnavailable")
+    void test_virtual_threads_profile_refuses_to_start_without_them() {
+        Exception e = assertThrows(Exception.class, () -> virtualThreadsApplication().run().close());
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof IllegalStateException)) {
+            cause = cause.getCause();
+        }
+        assertTrue(cause != null && cause.getMessage().contains("needs java 21"), String.valueOf(e));
+    }
+
+    private static SpringApplicationBuilder virtualThreadsApplication() {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .profiles("virtual-threads")
+                .properties("server.port=0", "spring.datasource.url=jdbc:h2:mem:virtualthreads");
+    }
+
+    static boolean virtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    static boolean virtualThreadsUnavailable() {
+        return !virtualThreadsAvailable();
+    }
+}
@@ -0,0 +1,76 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The names below are alerted on, a failure here means a dashboard or an alert breaks too
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metrics")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_prometheus_endpoint_publishes_stable_names() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"measured\",\"category\":\"drama\",\"rating\":\"3.0\"}"))
+                .andExpect(status().isCreated());
+        Long id = moviesRepository.findAll().get(0).getId();
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id)).andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies")).andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        //endpoints by uri template, with histogram buckets
+        assertMetric(metrics, "http_server_requests_seconds_bucket{", "application=\"movies\"", "uri=\"/movies/{id}\"", "method=\"GET\"");
+        assertMetric(metrics, "http_server_requests_seconds_count{", "uri=\"/movies\"", "method=\"POST\"", "status=\"201\"");
+        //repository calls per method
+        assertMetric(metrics, "spring_data_repository_invocations_seconds_bucket{", "repository=\"MoviesRepository\"", "method=\"findResponseById\"");
+        assertMetric(metrics, "spring_data_repository_invocations_seconds_count{", "repository=\"MoviesRepository\"", "method=\"save\"");
+        //connection pool
+        assertMetric(metrics, "hikaricp_connections_active{");
+        assertMetric(metrics, "hikaricp_connections_pending{");
+        assertMetric(metrics, "hikaricp_connections_acquire_seconds_bucket{");
+        assertMetric(metrics, "hikaricp_connections_usage_seconds_count{");
+        //jvm
+        assertMetric(metrics, "jvm_gc_memory_allocated_bytes_total{");
+        assertMetric(metrics, "jvm_memory_used_bytes{");
+        //movie cache
+        assertMetric(metrics, "cache_gets_total{", "cache=\"movies\"", "result=\"miss\"");
+        assertMetric(metrics, "movies_cache_invalidations_total{");
+    }
+
+    private static void assertMetric(String metrics, String name, String... tags) {
+        assertTrue(Arrays.stream(metrics.split("\n"))
+                        .anyMatch(line -> line.startsWith(name) && Arrays.stream(tags).allMatch(line::contains)),
+                name + " " + String.join(",", tags) + " is not published");
+    }
+}
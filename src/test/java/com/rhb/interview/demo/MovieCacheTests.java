@@ -0,0 +1,143 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.dto.MovieResponse;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.impl.MovieCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cache")
+@AutoConfigureMockMvc
+class MovieCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private MovieCache movieCache;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_repeated_get_is_served_from_cache() throws Exception {
+        Long id = save("cached");
+        long hits = (long) movieCache.statistics().get("hits");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title", is("cached")));
+        }
+        assertEquals(hits + 2, (long) movieCache.statistics().get("hits"));
+
+        //bypassing the service is not seen until the entry expires
+        MoviesEntity changed = moviesRepository.findById(id).get();
+        changed.setTitle("changed behind the cache");
+        moviesRepository.save(changed);
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(jsonPath("$.title", is("cached")));
+    }
+
+    @Test
+    void test_update_and_delete_invalidate() throws Exception {
+        Long id = save("before");
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(jsonPath("$.title", is("before")));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"after\",\"category\":\"drama\",\"rating\":\"1.5\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(jsonPath("$.title", is("after")));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void test_not_found_is_cached_until_created() throws Exception {
+        long misses = (long) movieCache.statistics().get("misses");
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/424242"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/424242"))
+                .andExpect(status().isNotFound());
+        assertEquals(misses + 1, (long) movieCache.statistics().get("misses"));
+    }
+
+    //a loader waiting for a connection must not hold up a writer invalidating with its connection held
+    @Test
+    void test_invalidation_does_not_wait_for_a_loading_lookup() throws Exception {
+        Long id = 4242L;
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<MovieResponse>> stale = CompletableFuture.supplyAsync(() -> movieCache.get(id, key -> {
+            loading.countDown();
+            await(release);
+            return Optional.of(new MovieResponse(key, "stale", "drama", (byte) 6, 0));
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        try {
+            CompletableFuture.runAsync(() -> movieCache.invalidate(id)).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+        assertEquals("stale", stale.get(5, TimeUnit.SECONDS).get().getTitle());
+
+        //the value loaded before the invalidation is not cached
+        assertEquals("fresh", movieCache.get(id, key -> Optional.of(new MovieResponse(key, "fresh", "drama", (byte) 6, 1)))
+                .get().getTitle());
+        movieCache.invalidate(id);
+    }
+
+    @Test
+    void test_statistics_endpoint() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/moviecache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").exists())
+                .andExpect(jsonPath("$.evictions").exists());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Long save(String title) {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle(title);
+        movie.setCategory("drama");
+        movie.setRating(3.0f);
+        return moviesRepository.save(movie).getId();
+    }
+}
@@ -0,0 +1,156 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.entity.LockFreePooledLoOptimizer;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:idgenerator")
+class MovieIdGeneratorTests {
+    private static final int THREADS = 16;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_ids_come_from_one_block() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MoviesEntity movie = new MoviesEntity();
+            movie.setTitle("block " + i);
+            movie.setCategory("drama");
+            movie.setRating(3f);
+            ids.add(moviesRepository.save(movie).getId());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(ids.get(0) + i, ids.get(i));
+        }
+        //the sequence is created with the block size as its increment
+        assertEquals(MoviesEntity.ID_BLOCK_SIZE, jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = 'HIBERNATE_SEQUENCE'", Long.class));
+    }
+
+    @Test
+    void test_one_database_read_per_block() {
+        Sequence sequence = new Sequence(10);
+        LockFreePooledLoOptimizer optimizer = new LockFreePooledLoOptimizer(Long.class, 10);
+
+        for (long i = 1; i <= 25; i++) {
+            assertEquals(i, optimizer.generate(sequence));
+        }
+        assertEquals(3, sequence.reads.get());
+    }
+
+    @Test
+    void test_concurrent_ids_are_unique() throws Exception {
+        Sequence sequence = new Sequence(100);
+        LockFreePooledLoOptimizer optimizer = new LockFreePooledLoOptimizer(Long.class, 100);
+
+        Set<Long> ids = generateConcurrently(THREADS, 1000, () -> (Long) optimizer.generate(sequence));
+
+        assertEquals(THREADS * 1000, ids.size());
+        assertEquals(THREADS * 1000 / 100, sequence.reads.get());
+    }
+
+    @Test
+    void test_instances_sharing_a_sequence_never_share_ids() throws Exception {
+        //every optimizer stands for an application instance, the sequence for the shared database
+        Sequence sequence = new Sequence(50);
+        List<LockFreePooledLoOptimizer> instances = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            instances.add(new LockFreePooledLoOptimizer(Long.class, 50));
+        }
+        AtomicInteger next = new AtomicInteger();
+
+        Set<Long> ids = generateConcurrently(THREADS, 500,
+                () -> (Long) instances.get(next.getAndIncrement() % instances.size()).generate(sequence));
+
+        assertEquals(THREADS * 500, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id > 0));
+    }
+
+    private Set<Long> generateConcurrently(int threads, int perThread, IdSource source) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<Long> generated = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        generated.add(source.next());
+                    }
+                    return generated;
+                }));
+            }
+            start.countDown();
+            Set<Long> ids = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                ids.addAll(future.get());
+            }
+            return ids;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface IdSource {
+        long next();
+    }
+
+    //a database sequence starting at 1 and moving on by the block size every read
+    private static class Sequence implements AccessCallback {
+        private final AtomicLong value = new AtomicLong(1);
+
+        private final AtomicInteger reads = new AtomicInteger();
+
+        private final int increment;
+
+        Sequence(int increment) {
+            this.increment = increment;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            reads.incrementAndGet();
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+                    .initialize(value.getAndAdd(increment));
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
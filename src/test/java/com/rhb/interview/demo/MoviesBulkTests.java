@@ -0,0 +1,121 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bulk")
+@AutoConfigureMockMvc
+class MoviesBulkTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_bulk_mixed_operations() throws Exception {
+        MoviesEntity existing = new MoviesEntity();
+        existing.setTitle("existing");
+        existing.setCategory("drama");
+        existing.setRating(1.0f);
+        existing = moviesRepository.save(existing);
+        MoviesEntity doomed = new MoviesEntity();
+        doomed.setTitle("doomed");
+        doomed.setCategory("drama");
+        doomed.setRating(1.0f);
+        doomed = moviesRepository.save(doomed);
+
+        String request = "["
+                + "{\"op\":\"create\",\"movie\":{\"title\":\"new\",\"category\":\"romance\",\"rating\":\"4.5\"}},"
+                + "{\"op\":\"create\",\"movie\":{\"title\":\"bad\",\"category\":\"romance\",\"rating\":\"4.4\"}},"
+                + "{\"op\":\"create\",\"movie\":{\"category\":\"romance\",\"rating\":\"4.5\"}},"
+                + "{\"op\":\"update\",\"id\":" + existing.getId() + ",\"movie\":{\"title\":\"updated\",\"category\":\"drama\",\"rating\":\"3\"}},"
+                + "{\"op\":\"update\",\"id\":100000,\"movie\":{\"title\":\"ghost\",\"category\":\"drama\",\"rating\":\"3\"}},"
+                + "{\"op\":\"delete\",\"id\":" + doomed.getId() + "},"
+                + "{\"op\":\"delete\",\"id\":" + doomed.getId() + "},"
+                + "{\"op\":\"rename\",\"id\":1}"
+                + "]";
+
+        mockMvc
+                .perform(
+                        MockMvcRequestBuilders
+                                .post("/movies/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(request)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(8)))
+                .andExpect(jsonPath("$.items[0].status", is(201)))
+                .andExpect(jsonPath("$.items[0].id", notNullValue()))
+                .andExpect(jsonPath("$.items[1].status", is(400)))
+                .andExpect(jsonPath("$.items[1].errors[0].rating", notNullValue()))
+                .andExpect(jsonPath("$.items[2].status", is(400)))
+                .andExpect(jsonPath("$.items[2].errors[0].title", is("Title cannot be blank")))
+                .andExpect(jsonPath("$.items[3].status", is(200)))
+                .andExpect(jsonPath("$.items[4].status", is(404)))
+                .andExpect(jsonPath("$.items[5].status", is(200)))
+                .andExpect(jsonPath("$.items[6].status", is(404)))
+                .andExpect(jsonPath("$.items[7].status", is(400)));
+
+        assertEquals("updated", moviesRepository.findById(existing.getId()).get().getTitle());
+        assertFalse(moviesRepository.existsById(doomed.getId()));
+        assertEquals(2, moviesRepository.count());
+    }
+
+    @Test
+    void test_bulk_many_chunks() throws Exception {
+        StringBuilder request = new StringBuilder("[");
+        int operations = 1203;
+        for (int i = 0; i < operations; i++) {
+            request.append(i == 0 ? "" : ",")
+                    .append("{\"op\":\"create\",\"movie\":{\"title\":\"bulk ").append(i)
+                    .append("\",\"category\":\"romance\",\"rating\":\"2.5\"}}");
+        }
+        request.append("]");
+
+        mockMvc
+                .perform(
+                        MockMvcRequestBuilders
+                                .post("/movies/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(request.toString())
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(operations)));
+        assertEquals(operations, moviesRepository.count());
+    }
+
+    @Test
+    void test_bulk_empty() throws Exception {
+        mockMvc
+                .perform(
+                        MockMvcRequestBuilders
+                                .post("/movies/_bulk")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[]")
+                )
+                .andExpect(status().isBadRequest());
+    }
+}
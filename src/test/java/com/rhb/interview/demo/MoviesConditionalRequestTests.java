@@ -0,0 +1,162 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag, If-None-Match and If-Match handling on the movie resources
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conditional")
+@AutoConfigureMockMvc
+class MoviesConditionalRequestTests {
+
+    private static final String REQUEST = "{\"title\":\"changed\",\"category\":\"drama\",\"rating\":\"4.0\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_get_not_modified() throws Exception {
+        Long id = save();
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    //each encoding is a representation of its own, a tag must not revalidate another encoding's body
+    @Test
+    void test_tag_per_encoding() throws Exception {
+        Long id = save();
+        String json = mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cbor = mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String protobuf = mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id)
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-protobuf"))
+                .andExpect(content().contentTypeCompatibleWith("application/x-protobuf"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(json, cbor);
+        assertNotEquals(json, protobuf);
+        assertNotEquals(cbor, protobuf);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, cbor));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, cbor));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH,
+                        mockMvc.perform(MockMvcRequestBuilders.get("/movies")).andReturn().getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isOk());
+
+        //any encoding's tag names the version for a conditional write
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .header(HttpHeaders.IF_MATCH, cbor)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void test_list_not_modified_until_write() throws Exception {
+        Long id = save();
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk());
+        String next = mockMvc.perform(MockMvcRequestBuilders.get("/movies").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, next);
+    }
+
+    @Test
+    void test_update_if_match() throws Exception {
+        Long id = save();
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String updated = mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, updated);
+
+        //the first writer won, a second one holding the old tag is rejected
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(header().string(HttpHeaders.ETAG, updated));
+    }
+
+    @Test
+    void test_delete_if_match() throws Exception {
+        Long id = save();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id).header(HttpHeaders.IF_MATCH, "\"42\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id).header(HttpHeaders.IF_MATCH, "not a tag"))
+                .andExpect(status().isPreconditionFailed());
+        assertTrue(moviesRepository.existsById(id));
+
+        long version = moviesRepository.findById(id).get().getVersion();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id).header(HttpHeaders.IF_MATCH, "\"" + version + "\""))
+                .andExpect(status().isOk());
+        assertEquals(0, moviesRepository.count());
+    }
+
+    private Long save() {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle("original");
+        movie.setCategory("comedy");
+        movie.setRating(1.0f);
+        return moviesRepository.save(movie).getId();
+    }
+}
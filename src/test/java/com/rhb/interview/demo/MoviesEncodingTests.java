@@ -0,0 +1,172 @@
+package com.rhb.interview.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Movie responses in the encodings negotiated by Accept
+ * cbor and smile must carry the same document as the json, protobuf the messages of movies.proto
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:encoding")
+@AutoConfigureMockMvc
+class MoviesEncodingTests {
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_json_stays_default() throws Exception {
+        save("Json", "drama", 4f);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void test_cbor_and_smile_match_json() throws Exception {
+        save("Binary", "drama", 4.5f);
+        save("Binary unrated", "comedy", null);
+        ObjectMapper json = new ObjectMapper();
+        JsonNode expected = json.readTree(get("/movies?limit=1", MediaType.APPLICATION_JSON));
+
+        //compared as json text, the binary formats keep the rating a float where json reads back a double
+        assertEquals(expected.toString(), new ObjectMapper(new CBORFactory()).readTree(get("/movies?limit=1", CBOR)).toString());
+        assertEquals(expected.toString(), new ObjectMapper(new SmileFactory()).readTree(get("/movies?limit=1", SMILE)).toString());
+
+        long id = expected.get("movies").get(0).get("id").asLong();
+        assertEquals(json.readTree(get("/movies/" + id, MediaType.APPLICATION_JSON)).toString(),
+                new ObjectMapper(new CBORFactory()).readTree(get("/movies/" + id, CBOR)).toString());
+    }
+
+    @Test
+    void test_protobuf_movies() throws Exception {
+        save("Proto, \"quoted\"", "drama", 4.5f);
+        save("Proto unrated", "comedy", null);
+
+        Map<Integer, List<Object>> response = read(get("/movies?limit=2", PROTOBUF), 2);
+        List<Object> movies = response.get(1);
+        assertEquals(2, movies.size());
+        Map<Integer, List<Object>> first = read((byte[]) movies.get(0), 2, 3);
+        assertEquals("Proto, \"quoted\"", first.get(2).get(0));
+        assertEquals("drama", first.get(3).get(0));
+        assertEquals(4.5f, first.get(4).get(0));
+        Map<Integer, List<Object>> second = read((byte[]) movies.get(1), 2, 3);
+        assertEquals("Proto unrated", second.get(2).get(0));
+        assertFalse(second.containsKey(4));
+        //the last page has no cursor
+        assertFalse(response.containsKey(2));
+
+        long id = (Long) first.get(1).get(0);
+        Map<Integer, List<Object>> movie = read(get("/movies/" + id, PROTOBUF), 2, 3, 6);
+        assertEquals(id, movie.get(1).get(0));
+        assertEquals("Proto, \"quoted\"", movie.get(2).get(0));
+        assertEquals(4.5f, movie.get(4).get(0));
+    }
+
+    @Test
+    void test_protobuf_errors() throws Exception {
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("limit", "0").accept(PROTOBUF))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Object> errors = read(body, 2, 4).get(3);
+        assertEquals(1, errors.size());
+        Map<Integer, List<Object>> error = read((byte[]) errors.get(0), 1, 2);
+        assertEquals("limit", error.get(1).get(0));
+        assertEquals("Allowed limit 1 to 1000", error.get(2).get(0));
+    }
+
+    private byte[] get(String uri, MediaType mediaType) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get(uri).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    /**
+     * Fields of a protobuf message by number, varints as Long, fixed32 as Float, length delimited as byte[]
+     * unless listed as strings
+     */
+    private static Map<Integer, List<Object>> read(byte[] message, int... stringFields) throws IOException {
+        Map<Integer, List<Object>> fields = new HashMap<>();
+        CodedInputStream input = CodedInputStream.newInstance(message);
+        for (int tag; (tag = input.readTag()) != 0; ) {
+            int number = WireFormat.getTagFieldNumber(tag);
+            Object value;
+            switch (WireFormat.getTagWireType(tag)) {
+                case WireFormat.WIRETYPE_VARINT:
+                    value = input.readInt64();
+                    break;
+                case WireFormat.WIRETYPE_FIXED32:
+                    value = input.readFloat();
+                    break;
+                case WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                    boolean string = false;
+                    for (int stringField : stringFields) {
+                        string |= stringField == number;
+                    }
+                    value = string ? input.readString() : input.readByteArray();
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected wire type in tag " + tag);
+            }
+            fields.computeIfAbsent(number, key -> new ArrayList<>()).add(value);
+        }
+        return fields;
+    }
+
+    private void save(String title, String category, Float rating) {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle(title);
+        movie.setCategory(category);
+        movie.setRating(rating);
+        moviesRepository.save(movie);
+    }
+}
@@ -0,0 +1,202 @@
+package com.rhb.interview.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Catalog export, gzip compressed or not
+ * more rows than the stream fetch size so the cursor fetches several times
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:export")
+@AutoConfigureMockMvc
+class MoviesExportTests {
+
+    private static final int MOVIES = MoviesRepository.STREAM_FETCH_SIZE * 2 + 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_ndjson_gzip_export() throws Exception {
+        seed(MOVIES);
+
+        MvcResult result = export(MockMvcRequestBuilders.get("/movies/_export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"));
+        assertEquals("gzip", result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())));
+
+        String body = gunzip(result.getResponse().getContentAsByteArray());
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(MOVIES, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode movie = mapper.readTree(line);
+            assertTrue(movie.get("id").asLong() > previousId);
+            assertEquals(2.5, movie.get("rating").asDouble());
+            previousId = movie.get("id").asLong();
+        }
+    }
+
+    @Test
+    void test_gzip_refused() throws Exception {
+        seed(3);
+
+        MvcResult result = export(MockMvcRequestBuilders.get("/movies/_export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"));
+        assertNull(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(3, result.getResponse().getContentAsString().split("\n").length);
+    }
+
+    //an explicit gzip entry wins over * wherever it is listed
+    @Test
+    void test_gzip_refused_explicitly_besides_any() throws Exception {
+        seed(3);
+
+        for (String acceptEncoding : new String[]{"gzip;q=0, *", "*, gzip;q=0"}) {
+            MvcResult result = export(MockMvcRequestBuilders.get("/movies/_export")
+                    .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+            assertNull(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+        }
+        for (String acceptEncoding : new String[]{"*;q=0, gzip", "gzip, *;q=0", "identity, *"}) {
+            MvcResult result = export(MockMvcRequestBuilders.get("/movies/_export")
+                    .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+            assertEquals("gzip", result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertEquals(3, gunzip(result.getResponse().getContentAsByteArray()).split("\n").length);
+        }
+    }
+
+    @Test
+    void test_resume_after_last_id() throws Exception {
+        seed(MOVIES);
+        List<Long> ids = moviesRepository.findAll(Sort.by("id")).stream().map(MoviesEntity::getId).collect(Collectors.toList());
+        long after = ids.get(MOVIES - 10);
+
+        MvcResult result = export(MockMvcRequestBuilders.get("/movies/_export")
+                .param("after", Long.toString(after)));
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(9, lines.length);
+        assertEquals(ids.get(MOVIES - 9).longValue(), new ObjectMapper().readTree(lines[0]).get("id").asLong());
+    }
+
+    @Test
+    void test_csv_export_imports_back() throws Exception {
+        save("plain", "drama", 4.5f);
+        save("quoted, with \"quotes\" and\na line break", "drama", 3f);
+        save("no rating", "comedy", null);
+
+        MvcResult result = export(MockMvcRequestBuilders.get("/movies/_export")
+                .param("format", "csv")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        assertTrue(MediaType.parseMediaType("text/csv").isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())));
+        String csv = gunzip(result.getResponse().getContentAsByteArray());
+        assertTrue(csv.startsWith("id,title,category,rating\n"));
+        assertTrue(csv.contains(",\"quoted, with \"\"quotes\"\" and\na line break\",drama,3.0\n"));
+        assertTrue(csv.contains(",no rating,comedy,\n"));
+
+        //the rating is required on import, the movie without one is rejected
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read", is(3)))
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)));
+        assertEquals(2, moviesRepository.findAll().stream()
+                .filter(movie -> movie.getTitle().equals("quoted, with \"quotes\" and\na line break")).count());
+    }
+
+    @Test
+    void test_invalid_export_request() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/movies/_export").param("format", "xml"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].format", is("Allowed format ndjson,csv")));
+
+        result = mockMvc.perform(MockMvcRequestBuilders.get("/movies/_export").param("after", "-1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].after", is("After cannot be negative")));
+    }
+
+    private MvcResult export(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+        return result;
+    }
+
+    private void seed(int count) {
+        List<MoviesEntity> movies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MoviesEntity movie = new MoviesEntity();
+            movie.setTitle("Export " + i);
+            movie.setCategory("Category " + (i % 3));
+            movie.setRating(2.5f);
+            movies.add(movie);
+        }
+        moviesRepository.saveAll(movies);
+    }
+
+    private void save(String title, String category, Float rating) {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle(title);
+        movie.setCategory(category);
+        movie.setRating(rating);
+        moviesRepository.save(movie);
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.rhb.interview.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Category and rating filters of the movie list
+ * besides the results, the sql hibernate sends is explained on h2 to prove it is answered from the
+ * composite indexes rather than a scan of the table
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:filters",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.rhb.interview.demo.RecordingStatementInspector"
+})
+@AutoConfigureMockMvc
+class MoviesFilterTests {
+
+    private static final int MOVIES = 5000;
+    private static final int CATEGORIES = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    public static void setup(@Autowired MoviesRepository moviesRepository, @Autowired JdbcTemplate jdbcTemplate) {
+        List<MoviesEntity> movies = new ArrayList<>();
+        for (int i = 0; i < MOVIES; i++) {
+            MoviesEntity mockData = new MoviesEntity();
+            mockData.setTitle("Filter " + i);
+            mockData.setCategory("category " + (i % CATEGORIES));
+            mockData.setRating(0.5f * (1 + (i / CATEGORIES) % 10));
+            movies.add(mockData);
+        }
+        moviesRepository.saveAll(movies);
+        //give the h2 optimizer real selectivity figures
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    public static void cleanUp(@Autowired MoviesRepository moviesRepository) {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_category_and_rating_range() throws Exception {
+        List<JsonNode> movies = all(() -> MockMvcRequestBuilders.get("/movies")
+                .param("category", "category 7")
+                .param("minRating", "4.5")
+                .param("maxRating", "5"));
+        assertEquals(MOVIES / CATEGORIES / 5, movies.size());
+        for (JsonNode movie : movies) {
+            assertEquals("category 7", movie.get("category").asText());
+            assertTrue(movie.get("rating").asDouble() >= 4.5);
+        }
+        assertPlanUses("IDX_MOVIES_CATEGORY_RATING_ID");
+    }
+
+    @Test
+    void test_category_only() throws Exception {
+        List<JsonNode> movies = all(() -> MockMvcRequestBuilders.get("/movies").param("category", "category 3"));
+        assertEquals(MOVIES / CATEGORIES, movies.size());
+        assertPlanUses("IDX_MOVIES_CATEGORY_");
+    }
+
+    @Test
+    void test_rating_range_sorted_by_rating() throws Exception {
+        List<JsonNode> movies = all(() -> MockMvcRequestBuilders.get("/movies")
+                .param("minRating", "1.0")
+                .param("maxRating", "1.0")
+                .param("sort", "rating"));
+        assertEquals(MOVIES / 10, movies.size());
+        assertPlanUses("IDX_MOVIES_RATING_ID");
+    }
+
+    @Test
+    void test_invalid_range() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("minRating", "4").param("maxRating", "2"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("maxRating", "7"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Follows next cursors to the end while recording the sql of every page
+     */
+    private List<JsonNode> all(Supplier<MockHttpServletRequestBuilder> request) throws Exception {
+        RecordingStatementInspector.clear();
+        List<JsonNode> movies = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder page = request.get().param("limit", "7");
+            if (cursor != null) {
+                page = page.param("after", cursor);
+            }
+            JsonNode body = mapper.readTree(mockMvc.perform(page)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            body.get("movies").forEach(movies::add);
+            cursor = body.hasNonNull("nextCursor") ? body.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return movies;
+    }
+
+    private void assertPlanUses(String index) {
+        List<String> selects = new ArrayList<>();
+        for (String sql : RecordingStatementInspector.statements()) {
+            if (sql.toLowerCase(Locale.ROOT).startsWith("select")) {
+                selects.add(sql);
+            }
+        }
+        assertTrue(selects.size() > 1, "expected several pages");
+        for (String sql : selects) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, bindValues(sql));
+            assertThat(plan.toUpperCase(Locale.ROOT), containsString(index));
+        }
+    }
+
+    /**
+     * Values for the jdbc parameters of a recorded statement, picked by the column the parameter is compared with
+     */
+    private static Object[] bindValues(String sql) {
+        List<Object> values = new ArrayList<>();
+        String lower = sql.toLowerCase(Locale.ROOT);
+        for (int i = lower.indexOf('?'); i >= 0; i = lower.indexOf('?', i + 1)) {
+            String before = lower.substring(Math.max(0, i - 30), i);
+            if (before.contains("category")) {
+                values.add("category 7");
+            } else if (before.contains("rating")) {
+                values.add(1.0f);
+            } else if (before.contains("title")) {
+                values.add("Filter 1");
+            } else if (before.contains("limit")) {
+                values.add(8);
+            } else {
+                values.add(1L);
+            }
+        }
+        return values.toArray();
+    }
+}
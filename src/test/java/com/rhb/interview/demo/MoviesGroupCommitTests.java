@@ -0,0 +1,186 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.config.GroupCommitProperties;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import com.rhb.interview.demo.service.impl.MovieGroupCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//a long linger so creates started together end up in the same batch, a short wait so a stuck writer fails quickly
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:groupcommit",
+        "movies.group-commit.enabled=true",
+        "movies.group-commit.max-batch-size=50",
+        "movies.group-commit.max-linger=200ms",
+        "movies.group-commit.max-wait=1s"})
+@AutoConfigureMockMvc
+class MoviesGroupCommitTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_concurrent_creates_share_transactions() throws Exception {
+        double batches = meterRegistry.get("movies.group.commit.batches").functionCounter().count();
+        double created = meterRegistry.get("movies.group.commit.created").functionCounter().count();
+        List<Integer> statuses = createConcurrently(titles(20, -1));
+
+        statuses.forEach(status -> assertEquals(201, status));
+        assertEquals(20, moviesRepository.count());
+        assertEquals(20, meterRegistry.get("movies.group.commit.created").functionCounter().count() - created, 0);
+        assertTrue(meterRegistry.get("movies.group.commit.batches").functionCounter().count() - batches < 20);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies", hasSize(20)));
+    }
+
+    @Test
+    void test_failing_create_does_not_fail_its_batch() throws Exception {
+        //too long for the title column, only the database rejects it
+        List<Integer> statuses = createConcurrently(titles(10, 3));
+
+        for (int i = 0; i < statuses.size(); i++) {
+            assertEquals(i == 3 ? 500 : 201, statuses.get(i));
+        }
+        assertEquals(9, moviesRepository.count());
+    }
+
+    @Test
+    void test_invalid_create_is_rejected_before_queueing() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"bad\",\"category\":\"romance\",\"rating\":\"4.4\"}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, moviesRepository.count());
+    }
+
+    @Test
+    void test_error_fails_its_batch_and_not_the_writer() throws Exception {
+        assertEquals(500, create(Failing.ERROR));
+        assertEquals(201, create("after the error"));
+        assertEquals(1, moviesRepository.count());
+    }
+
+    @Test
+    void test_create_gives_up_after_max_wait() throws Exception {
+        long started = System.nanoTime();
+        assertEquals(500, create(Failing.SLOW));
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(Failing.SLOW_MILLIS));
+        //the writer still finishes the slow batch and then takes new creates
+        Thread.sleep(Failing.SLOW_MILLIS);
+        assertEquals(201, create("after the slow one"));
+    }
+
+    @Test
+    void test_invalid_properties_are_rejected() {
+        GroupCommitProperties properties = new GroupCommitProperties();
+        properties.setMaxBatchSize(0);
+        assertThrows(IllegalStateException.class, () -> new MovieGroupCommit(properties, null, null, null, null));
+        properties.setMaxBatchSize(10);
+        properties.setMaxWait(Duration.ZERO);
+        assertThrows(IllegalStateException.class, () -> new MovieGroupCommit(properties, null, null, null, null));
+    }
+
+    private int create(String title) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"category\":\"romance\",\"rating\":\"4.5\"}"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private static List<String> titles(int count, int tooLong) {
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            titles.add(i == tooLong ? "x".repeat(300) : "movie " + i);
+        }
+        return titles;
+    }
+
+    private List<Integer> createConcurrently(List<String> titles) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(titles.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> responses = new ArrayList<>();
+            for (String title : titles) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"title\":\"" + title + "\",\"category\":\"romance\",\"rating\":\"4.5\"}"))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> response : responses) {
+                statuses.add(response.get());
+            }
+            return statuses;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Listens to creates inside the writer's transaction, throws an Error for one title and stalls on another
+     */
+    @TestConfiguration
+    static class Failing {
+        static final String ERROR = "throws an error";
+
+        static final String SLOW = "takes long";
+
+        static final long SLOW_MILLIS = 2000;
+
+        @EventListener
+        public void onMovieChanged(MovieChangedEvent event) throws InterruptedException {
+            if (event.getType() != MovieChangedEvent.Type.CREATED) {
+                return;
+            }
+            if (ERROR.equals(event.getMovie().getTitle())) {
+                throw new AssertionError("an error, not an exception");
+            }
+            if (SLOW.equals(event.getMovie().getTitle())) {
+                Thread.sleep(SLOW_MILLIS);
+            }
+        }
+    }
+}
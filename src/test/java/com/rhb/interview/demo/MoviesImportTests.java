@@ -0,0 +1,189 @@
+package com.rhb.interview.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.interview.demo.config.ImportProperties;
+import com.rhb.interview.demo.controller.MovieImportRunner;
+import com.rhb.interview.demo.dto.CatalogFormat;
+import com.rhb.interview.demo.dto.ImportResponse;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MoviesService;
+import com.rhb.interview.demo.service.impl.MovieImporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//small batches and rows so a few lines cover several batches and the row limit
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import",
+        "movies.import.batch-size=2",
+        "movies.import.max-row-length=400",
+        "movies.import.max-reported-rejections=2"})
+@AutoConfigureMockMvc
+class MoviesImportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private MovieImporter movieImporter;
+
+    @Autowired
+    private MoviesService moviesService;
+
+    @Autowired
+    private ImportProperties importProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_csv_import() throws Exception {
+        String csv = "rating,title,category,year\r\n"
+                + "4.5,plain,drama,1999\r\n"
+                + "\r\n"
+                + "3,\"quoted, with \"\"quotes\"\" and\na line break\",drama,2001\r\n"
+                + "4.4,bad rating,drama,2002\r\n"
+                + "2.5,,drama,2003\r\n"
+                + "1,\"unterminated,drama,2004\r\n";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read", is(5)))
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.rejected", is(3)))
+                .andExpect(jsonPath("$.rejectedRows", hasSize(2)))
+                .andExpect(jsonPath("$.rejectedRows[0].line", is(6)))
+                .andExpect(jsonPath("$.rejectedRows[0].errors[0].rating").exists())
+                .andExpect(jsonPath("$.rejectedRows[1].line", is(7)))
+                .andExpect(jsonPath("$.rejectedRows[1].errors[0].title", is("Title cannot be blank")))
+                .andExpect(jsonPath("$.truncated", is(true)));
+
+        List<String> titles = moviesRepository.findAll().stream().map(MoviesEntity::getTitle).sorted().collect(Collectors.toList());
+        assertEquals(List.of("plain", "quoted, with \"quotes\" and\na line break"), titles);
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "plain"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies", hasSize(1)));
+    }
+
+    @Test
+    void test_csv_import_needs_the_columns() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_import")
+                        .contentType("text/csv")
+                        .content("title,rating\nplain,4.5\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].body").exists());
+        assertEquals(0, moviesRepository.count());
+    }
+
+    //a body that breaks after two batches committed is not a bad request, the response says what got in
+    @Test
+    void test_failure_after_a_batch_reports_the_counts() {
+        String ndjson = "{\"title\":\"first\",\"category\":\"drama\",\"rating\":\"4.5\"}\n".repeat(5);
+        InputStream body = new SequenceInputStream(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        ResponseEntity<ImportResponse> response = moviesService.importMovies(body, CatalogFormat.NDJSON);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(5, response.getBody().getRead());
+        assertEquals(4, response.getBody().getImported());
+        assertTrue(response.getBody().getError().contains("connection reset"), response.getBody().getError());
+        assertEquals(4, moviesRepository.count());
+    }
+
+    @Test
+    void test_ndjson_import() throws Exception {
+        String ndjson = "{\"title\":\"first\",\"category\":\"drama\",\"rating\":\"4.5\"}\n"
+                + "{\"title\":\"second\",\"category\":\"drama\",\"rating\":3}\n"
+                + "not json\n"
+                + "{\"title\":\"" + "x".repeat(500) + "\",\"category\":\"drama\",\"rating\":\"4.5\"}\n"
+                + "{\"title\":\"third\",\"category\":\"drama\",\"rating\":\"1\"}";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read", is(5)))
+                .andExpect(jsonPath("$.imported", is(3)))
+                .andExpect(jsonPath("$.rejectedRows[0].line", is(3)))
+                .andExpect(jsonPath("$.rejectedRows[0].errors[0].row", is("Row is not a json object")))
+                .andExpect(jsonPath("$.rejectedRows[1].line", is(4)))
+                .andExpect(jsonPath("$.rejectedRows[1].errors[0].row", is("Row is too long")))
+                .andExpect(jsonPath("$.truncated").doesNotExist());
+        assertEquals(3, moviesRepository.count());
+    }
+
+    @Test
+    void test_rows_the_database_refuses_do_not_fail_their_batch() throws Exception {
+        //valid and short enough to read, too long for the title column
+        String ndjson = "{\"title\":\"kept\",\"category\":\"drama\",\"rating\":\"4.5\"}\n"
+                + "{\"title\":\"" + "x".repeat(300) + "\",\"category\":\"drama\",\"rating\":\"4.5\"}\n";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejectedRows[0].line", is(2)))
+                .andExpect(jsonPath("$.rejectedRows[0].error").exists());
+        assertEquals(1, moviesRepository.count());
+    }
+
+    @Test
+    void test_file_import_writes_rejected_rows(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("catalog.csv");
+        Files.writeString(file, "title,category,rating\nfrom a file,drama,2\nno rating,drama,\n");
+        ImportProperties properties = new ImportProperties();
+        properties.setFile(file.toString());
+        properties.setBatchSize(importProperties.getBatchSize());
+        properties.setMaxRowLength(importProperties.getMaxRowLength());
+
+        new MovieImportRunner(movieImporter, properties, objectMapper).run(new DefaultApplicationArguments());
+
+        assertEquals(1, moviesRepository.count());
+        List<String> rejected = Files.readAllLines(directory.resolve("catalog.csv.rejected.ndjson"), StandardCharsets.UTF_8);
+        assertEquals(1, rejected.size());
+        assertTrue(rejected.get(0).startsWith("{\"errors\":[{\"rating\""), rejected.get(0));
+        assertTrue(rejected.get(0).endsWith("\"line\":3}"), rejected.get(0));
+    }
+}
@@ -0,0 +1,130 @@
+package com.rhb.interview.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset pagination of the movie list
+ * runs on its own h2 database so the fixed data set of DemoApplicationTests is not disturbed
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:pagination")
+@AutoConfigureMockMvc
+class MoviesPaginationTests {
+
+    private static final int MOVIES = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    public static void setup(@Autowired MoviesRepository moviesRepository) {
+        for (int i = 0; i < MOVIES; i++) {
+            MoviesEntity mockData = new MoviesEntity();
+            //titles repeat so the id tie breaker is exercised
+            mockData.setTitle("Title " + (char) ('a' + (i % 7)));
+            mockData.setCategory("Category " + (i % 3));
+            mockData.setRating(0.5f * (1 + (i % 10)));
+            moviesRepository.save(mockData);
+        }
+    }
+
+    @AfterAll
+    public static void cleanUp(@Autowired MoviesRepository moviesRepository) {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_pages_cover_catalog_once_in_order() throws Exception {
+        for (String sort : new String[]{"id", "title", "rating"}) {
+            List<JsonNode> seen = new ArrayList<>();
+            String cursor = null;
+            do {
+                String body = mockMvc.perform(page(sort, cursor))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                JsonNode page = mapper.readTree(body);
+                page.get("movies").forEach(seen::add);
+                cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+            } while (cursor != null);
+
+            assertEquals(MOVIES, seen.size(), sort);
+            for (int i = 1; i < seen.size(); i++) {
+                assertFalse(compare(sort, seen.get(i - 1), seen.get(i)) >= 0, sort + " out of order at " + i);
+            }
+        }
+    }
+
+    @Test
+    void test_last_page_has_no_cursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("limit", String.valueOf(MOVIES)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies", hasSize(MOVIES)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void test_invalid_limit() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].limit").exists());
+    }
+
+    @Test
+    void test_invalid_sort() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("sort", "category"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void test_invalid_cursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].after").exists());
+    }
+
+    @Test
+    void test_cursor_of_other_sort_rejected() throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("limit", "2").param("sort", "title"))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = mapper.readTree(body).get("nextCursor").asText();
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("after", cursor).param("sort", "rating"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static int compare(String sort, JsonNode a, JsonNode b) {
+        int byKey = 0;
+        if ("title".equals(sort)) {
+            byKey = a.get("title").asText().compareTo(b.get("title").asText());
+        } else if ("rating".equals(sort)) {
+            byKey = Double.compare(a.get("rating").asDouble(), b.get("rating").asDouble());
+        }
+        return byKey != 0 ? byKey : Long.compare(a.get("id").asLong(), b.get("id").asLong());
+    }
+
+    private static MockHttpServletRequestBuilder page(String sort, String cursor) {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/movies").param("limit", "4").param("sort", sort);
+        return cursor == null ? request : request.param("after", cursor);
+    }
+}
@@ -0,0 +1,98 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.impl.ETags;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads go straight from rows into the response, hibernate should not load a single entity for them
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:projection",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "movies.cache.maximum-size=0"})
+@AutoConfigureMockMvc
+class MoviesProjectionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_list_loads_no_entities() throws Exception {
+        save("first", "drama", 3.5f);
+        save("second", "comedy", 1.0f);
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies[*].title", contains("first", "second")))
+                .andExpect(jsonPath("$.movies[0].category", is("drama")))
+                .andExpect(jsonPath("$.movies[0].rating", is(3.5)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies").param("category", "comedy"))
+                .andExpect(jsonPath("$.movies[*].title", contains("second")));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void test_single_movie_loads_no_entities() throws Exception {
+        MoviesEntity movie = save("single", "western", 5f);
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + movie.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETags.ofVersion(movie.getVersion())))
+                .andExpect(jsonPath("$.title", is("single")))
+                .andExpect(jsonPath("$.rating", is(5.0)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + (movie.getId() + 1)))
+                .andExpect(status().isNotFound());
+
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private MoviesEntity save(String title, String category, float rating) {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle(title);
+        movie.setCategory(category);
+        movie.setRating(rating);
+        return moviesRepository.save(movie);
+    }
+}
@@ -0,0 +1,190 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import com.rhb.interview.demo.service.impl.MovieTitleIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:search")
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+class MoviesSearchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private MovieTitleIndex movieTitleIndex;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+        movieTitleIndex.rebuild();
+    }
+
+    @Test
+    void test_search_ranks_exact_then_prefix_then_word_then_substring() throws Exception {
+        for (String title : new String[]{"Xenomorphalien", "The Alien Within", "Alien Resurrection", "Aliens", "Alien", "Predator"}) {
+            create(title);
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "ALIEN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies[*].title",
+                        contains("Alien", "Aliens", "Alien Resurrection", "The Alien Within", "Xenomorphalien")))
+                .andExpect(jsonPath("$.movies[0].category", is("scifi")))
+                .andExpect(jsonPath("$.movies[0].rating", is(4.5)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "alien").param("limit", "2"))
+                .andExpect(jsonPath("$.movies[*].title", contains("Alien", "Aliens")));
+    }
+
+    @Test
+    void test_grams_out_of_order_do_not_match() throws Exception {
+        create("ien lie ali");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "alien"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies", empty()));
+    }
+
+    @Test
+    void test_updates_and_deletes_are_searchable_after_commit() throws Exception {
+        create("Heat");
+        Long id = moviesRepository.findAll().get(0).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Cold Heat\",\"category\":\"crime\",\"rating\":\"3.5\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "cold"))
+                .andExpect(jsonPath("$.movies[*].id", contains(id.intValue())))
+                .andExpect(jsonPath("$.movies[0].category", is("crime")));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "heat"))
+                .andExpect(jsonPath("$.movies", empty()));
+    }
+
+    //listeners run after each writer's own commit in no particular order, the events of committed changes are
+    //applied again here as if their listeners had only run now
+    @Test
+    void test_late_events_do_not_undo_later_changes() throws Exception {
+        create("Heat");
+        Long id = moviesRepository.findAll().get(0).getId();
+        update(id, "Cold Heat");
+        update(id, "Warm Heat");
+        List<MovieChangedEvent> changes = events.stream(MovieChangedEvent.class)
+                .filter(event -> event.getId().equals(id))
+                .collect(Collectors.toList());
+        assertEquals(3, changes.size());
+
+        movieTitleIndex.onMovieChanged(changes.get(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "cold"))
+                .andExpect(jsonPath("$.movies", empty()));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "warm"))
+                .andExpect(jsonPath("$.movies[*].id", contains(id.intValue())));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk());
+        movieTitleIndex.onMovieChanged(changes.get(2));
+        movieTitleIndex.onMovieChanged(changes.get(0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "heat"))
+                .andExpect(jsonPath("$.movies", empty()));
+    }
+
+    @Test
+    void test_rebuild_reads_rows_written_behind_the_service() throws Exception {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle("Behind The Service");
+        movie.setCategory("drama");
+        movie.setRating(2.0f);
+        moviesRepository.save(movie);
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "service"))
+                .andExpect(jsonPath("$.movies", empty()));
+
+        movieTitleIndex.rebuild();
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "service"))
+                .andExpect(jsonPath("$.movies", hasSize(1)));
+    }
+
+    @Test
+    void test_title_churn_is_compacted() {
+        for (long id = 1; id <= 100; id++) {
+            movieTitleIndex.onMovieChanged(MovieChangedEvent.created(new Movie(id, "churn " + id, "drama", (byte) 6)));
+        }
+        for (int round = 1; round <= 30; round++) {
+            for (long id = 1; id <= 100; id++) {
+                movieTitleIndex.onMovieChanged(MovieChangedEvent.updated(new Movie(id, "churn " + id + " take " + round, "drama", (byte) 6), round));
+            }
+        }
+
+        assertEquals(100, movieTitleIndex.statistics().get("movies"));
+        assertTrue((int) movieTitleIndex.statistics().get("deletedDocuments") < 1100);
+        List<Movie> found = movieTitleIndex.search("churn 7 take", 100);
+        assertEquals(1, found.size());
+        assertEquals("churn 7 take 30", found.get(0).getTitle());
+    }
+
+    @Test
+    void test_invalid_query_and_limit() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "ab"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].q").exists());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "abc").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].limit").exists());
+    }
+
+    @Test
+    void test_footprint_endpoint() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/moviesearch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ready", is(true)))
+                .andExpect(jsonPath("$.estimatedBytes").exists());
+    }
+
+    private void update(Long id, String title) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"category\":\"scifi\",\"rating\":\"4.5\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private void create(String title) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"category\":\"scifi\",\"rating\":\"4.5\"}"))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,195 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.dto.CategoryStatistics;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.MovieChangedEvent;
+import com.rhb.interview.demo.service.impl.MovieStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statistics")
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+class MoviesStatisticsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private MovieStatistics movieStatistics;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+        movieStatistics.rebuild();
+    }
+
+    @Test
+    void test_statistics_follow_creates_updates_and_deletes() throws Exception {
+        create("drama", "4.0");
+        create("drama", "5");
+        create("drama", "4.0");
+        create("comedy", "1.5");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies", is(4)))
+                .andExpect(jsonPath("$.categories[*].category", contains("comedy", "drama")))
+                .andExpect(jsonPath("$.categories[1].count", is(3)))
+                .andExpect(jsonPath("$.categories[1].meanRating", is(13.0 / 3)))
+                .andExpect(jsonPath("$.categories[1].histogram['4.0']", is(2)))
+                .andExpect(jsonPath("$.categories[1].histogram['5.0']", is(1)))
+                .andExpect(jsonPath("$.categories[1].histogram['0.5']", is(0)));
+
+        Long comedy = moviesRepository.findAll().stream().filter(movie -> movie.getCategory().equals("comedy")).findFirst().get().getId();
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + comedy)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"moved\",\"category\":\"drama\",\"rating\":\"2.0\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(jsonPath("$.categories[*].category", contains("drama")))
+                .andExpect(jsonPath("$.categories[0].count", is(4)))
+                .andExpect(jsonPath("$.categories[0].meanRating", is(3.75)));
+
+        for (MoviesEntity movie : moviesRepository.findAll()) {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + movie.getId()))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(jsonPath("$.movies", is(0)))
+                .andExpect(jsonPath("$.categories", empty()));
+    }
+
+    //listeners run after each writer's own commit in no particular order, the events of committed changes are
+    //applied again here as if their listeners had only run now
+    @Test
+    void test_late_events_do_not_undo_later_changes() throws Exception {
+        create("drama", "4.0");
+        Long id = moviesRepository.findAll().get(0).getId();
+        update(id, "comedy", "2.0");
+        update(id, "horror", "3.0");
+        List<MovieChangedEvent> changes = events.stream(MovieChangedEvent.class)
+                .filter(event -> event.getId().equals(id))
+                .collect(Collectors.toList());
+        assertEquals(3, changes.size());
+
+        movieStatistics.onMovieChanged(changes.get(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(jsonPath("$.movies", is(1)))
+                .andExpect(jsonPath("$.categories[*].category", contains("horror")))
+                .andExpect(jsonPath("$.categories[0].meanRating", is(3.0)));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk());
+        movieStatistics.onMovieChanged(changes.get(2));
+        movieStatistics.onMovieChanged(changes.get(0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(jsonPath("$.movies", is(0)))
+                .andExpect(jsonPath("$.categories", empty()));
+    }
+
+    @Test
+    void test_bulk_writes_are_counted() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"create\",\"movie\":{\"title\":\"a\",\"category\":\"horror\",\"rating\":\"3.0\"}}," +
+                                "{\"op\":\"create\",\"movie\":{\"title\":\"b\",\"category\":\"horror\",\"rating\":\"2.0\"}}]"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(jsonPath("$.categories[0].category", is("horror")))
+                .andExpect(jsonPath("$.categories[0].count", is(2)))
+                .andExpect(jsonPath("$.categories[0].meanRating", is(2.5)));
+    }
+
+    @Test
+    void test_rebuild_reads_rows_written_behind_the_service() throws Exception {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle("behind");
+        movie.setCategory("western");
+        movie.setRating(0.5f);
+        moviesRepository.save(movie);
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(jsonPath("$.categories", empty()));
+
+        movieStatistics.rebuild();
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(jsonPath("$.categories[0].category", is("western")))
+                .andExpect(jsonPath("$.categories[0].histogram['0.5']", is(1)));
+    }
+
+    @Test
+    void test_concurrent_changes_add_up() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            //every thread owns 1000 ids, creates them and then moves each one to another category and rating
+            List<Future<?>> futures = IntStream.range(0, 8).mapToObj(thread -> executor.submit(() -> {
+                for (long id = thread * 1000L + 1; id <= thread * 1000L + 1000; id++) {
+                    movieStatistics.onMovieChanged(MovieChangedEvent.created(new Movie(id, "t", "c" + id % 3, (byte) 2)));
+                }
+                for (long id = thread * 1000L + 1; id <= thread * 1000L + 1000; id++) {
+                    movieStatistics.onMovieChanged(MovieChangedEvent.updated(new Movie(id, "t", "c" + id % 5, (byte) 9), 1));
+                }
+            })).collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<CategoryStatistics> categories = movieStatistics.categories();
+        assertEquals(5, categories.size());
+        for (CategoryStatistics category : categories) {
+            assertEquals(1600, category.getCount());
+            assertEquals(4.5, category.getMeanRating());
+            assertEquals(1600L, category.getHistogram().get("4.5"));
+            assertEquals(0L, category.getHistogram().get("1.0"));
+        }
+    }
+
+    private void update(Long id, String category, String rating) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"movie\",\"category\":\"" + category + "\",\"rating\":\"" + rating + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private void create(String category, String rating) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"movie\",\"category\":\"" + category + "\",\"rating\":\"" + rating + "\"}"))
+                .andExpect(status().isCreated());
+    }
+}
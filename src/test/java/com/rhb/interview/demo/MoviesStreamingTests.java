@@ -0,0 +1,94 @@
+package com.rhb.interview.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ndjson streaming of the whole catalog
+ * the row count is above the stream fetch size so the persistence context is cleared mid stream
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:streaming")
+@AutoConfigureMockMvc
+class MoviesStreamingTests {
+
+    private static final int MOVIES = MoviesRepository.STREAM_FETCH_SIZE * 2 + 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    public static void setup(@Autowired MoviesRepository moviesRepository) {
+        List<MoviesEntity> movies = new ArrayList<>();
+        for (int i = 0; i < MOVIES; i++) {
+            MoviesEntity mockData = new MoviesEntity();
+            mockData.setTitle("Stream " + i);
+            mockData.setCategory("Category " + (i % 3));
+            mockData.setRating(2.5f);
+            movies.add(mockData);
+        }
+        moviesRepository.saveAll(movies);
+    }
+
+    @AfterAll
+    public static void cleanUp(@Autowired MoviesRepository moviesRepository) {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_stream_ndjson() throws Exception {
+        MvcResult result = mockMvc
+                .perform(
+                        MockMvcRequestBuilders
+                                .get("/movies")
+                                .accept(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(MOVIES, lines.length);
+
+        ObjectMapper mapper = new ObjectMapper();
+        long previousId = Long.MIN_VALUE;
+        for (String line : lines) {
+            JsonNode movie = mapper.readTree(line);
+            assertTrue(movie.get("id").asLong() > previousId);
+            assertEquals(2.5, movie.get("rating").asDouble());
+            previousId = movie.get("id").asLong();
+        }
+    }
+
+    @Test
+    void test_json_stays_default() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,82 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Update and delete go straight to a single statement, these check the status codes still follow the row count
+ * and that no request runs more than that one statement, found or not (counted from X-Sql-Statements).
+ * An update without If-Match then reads back the version it wrote for the change event, one more statement
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:writes")
+@AutoConfigureMockMvc
+class MoviesWriteTests {
+
+    private static final String REQUEST = "{\"title\":\"written\",\"category\":\"drama\",\"rating\":\"4.0\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_update() throws Exception {
+        Long id = save();
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(SqlStatements.exactly(2));
+
+        MoviesEntity updated = moviesRepository.findById(id).get();
+        assertEquals("written", updated.getTitle());
+        assertEquals(4.0f, updated.getRating());
+    }
+
+    @Test
+    void test_update_not_found() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/100000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isNotFound())
+                .andExpect(SqlStatements.exactly(1));
+    }
+
+    @Test
+    void test_delete() throws Exception {
+        Long id = save();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk())
+                .andExpect(SqlStatements.exactly(1));
+        assertFalse(moviesRepository.existsById(id));
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isNotFound())
+                .andExpect(SqlStatements.exactly(1));
+    }
+
+    private Long save() {
+        MoviesEntity movie = new MoviesEntity();
+        movie.setTitle("original");
+        movie.setCategory("comedy");
+        movie.setRating(1.0f);
+        return moviesRepository.save(movie).getId();
+    }
+}
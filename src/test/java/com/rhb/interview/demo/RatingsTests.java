@@ -0,0 +1,89 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.dto.Ratings;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ratings travel as stars on the wire and as half stars everywhere else
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:ratings")
+@AutoConfigureMockMvc
+class RatingsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_parse_accepts_half_stars_only() {
+        assertEquals(1, Ratings.parse("0.5"));
+        assertEquals(1, Ratings.parse(".5"));
+        assertEquals(2, Ratings.parse("1"));
+        assertEquals(2, Ratings.parse("1.0"));
+        assertEquals(9, Ratings.parse(" 4.50 "));
+        assertEquals(10, Ratings.parse("5"));
+        assertEquals(10, Ratings.parse("5.000"));
+        for (String invalid : new String[]{null, "", " ", "0", "0.0", "0.55", "1.05", "5.5", "6", "10", "-1", ".", "1.5a", "abc", "0.50000000000000001"}) {
+            assertEquals(Ratings.NONE, Ratings.parse(invalid), String.valueOf(invalid));
+        }
+    }
+
+    @Test
+    void test_stars_round_trip() {
+        for (byte halfStars = Ratings.MIN_HALF_STARS; halfStars <= Ratings.MAX_HALF_STARS; halfStars++) {
+            assertEquals(halfStars, Ratings.ofStars(Ratings.toStars(halfStars)));
+        }
+        assertNull(Ratings.toStars(Ratings.NONE));
+        assertEquals(Ratings.NONE, Ratings.ofStars(4.2f));
+    }
+
+    @Test
+    void test_json_still_carries_stars() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"stars\",\"category\":\"drama\",\"rating\":\"4.5\"}"))
+                .andExpect(status().isCreated());
+        Long id = moviesRepository.findAll().get(0).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(jsonPath("$.rating", is(4.5)))
+                .andExpect(jsonPath("$.ratingHalfStars").doesNotExist());
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"stars\",\"category\":\"drama\",\"rating\":\"5\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(content().string(containsString("\"rating\":5.0")));
+
+        assertEquals(10, jdbcTemplate.queryForObject("select rating from movies_entity where id = ?", Integer.class, id));
+        assertEquals("TINYINT", jdbcTemplate.queryForObject(
+                "select type_name from information_schema.columns where table_name = 'MOVIES_ENTITY' and column_name = 'RATING'", String.class));
+    }
+}
@@ -0,0 +1,72 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The same two replicas as ReadReplicaTests picked by the connections they have in use
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leastprimary",
+        "movies.read-replicas.enabled=true",
+        "movies.read-replicas.selection=least-connections",
+        "movies.read-replicas.replicas[0].url=jdbc:h2:mem:leastreplica1;DB_CLOSE_DELAY=-1",
+        "movies.read-replicas.replicas[1].url=jdbc:h2:mem:leastreplica2;DB_CLOSE_DELAY=-1"})
+class ReadReplicaLeastConnectionsTests {
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private TransactionTemplate newReadOnlyTransaction;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        ReadReplicaTests.copySchema(dataSource, "jdbc:h2:mem:leastreplica1;DB_CLOSE_DELAY=-1", "Replica one");
+        ReadReplicaTests.copySchema(dataSource, "jdbc:h2:mem:leastreplica2;DB_CLOSE_DELAY=-1", "Replica two");
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        newReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        newReadOnlyTransaction.setReadOnly(true);
+        newReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Test
+    void test_idle_replica_is_picked_first() {
+        assertEquals("Replica one", readOnlyTransaction.execute(status -> title()));
+        assertEquals("Replica one", readOnlyTransaction.execute(status -> title()));
+    }
+
+    @Test
+    void test_busy_replica_is_passed_over() {
+        //the outer transaction holds a connection of the first replica while the inner one picks
+        String inner = readOnlyTransaction.execute(status -> {
+            assertEquals("Replica one", title());
+            return newReadOnlyTransaction.execute(nested -> title());
+        });
+        assertEquals("Replica two", inner);
+    }
+
+    private String title() {
+        return moviesRepository.findAll().stream().map(MoviesEntity::getTitle).findFirst().orElse(null);
+    }
+}
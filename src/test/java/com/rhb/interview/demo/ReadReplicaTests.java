@@ -0,0 +1,159 @@
+package com.rhb.interview.demo;
+
+import com.jayway.jsonpath.JsonPath;
+import com.rhb.interview.demo.config.ReadRouting;
+import com.rhb.interview.demo.config.ReadWriteRoutingDataSource;
+import com.rhb.interview.demo.controller.ReadYourWritesFilter;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two h2 databases stand in for the replicas, each holds a movie the primary does not have
+ * so every response tells which database it was read from
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicaprimary",
+        "movies.read-replicas.enabled=true",
+        "movies.read-replicas.selection=round-robin",
+        "movies.read-replicas.replicas[0].url=" + ReadReplicaTests.REPLICA_1,
+        "movies.read-replicas.replicas[1].url=" + ReadReplicaTests.REPLICA_2})
+@AutoConfigureMockMvc
+class ReadReplicaTests {
+    static final String REPLICA_1 = "jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_2 = "jdbc:h2:mem:replica2;DB_CLOSE_DELAY=-1";
+
+    private static final String REQUEST = "{\"title\":\"On the primary\",\"category\":\"drama\",\"rating\":\"4.0\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        copySchema(dataSource, REPLICA_1, "Replica one");
+        copySchema(dataSource, REPLICA_2, "Replica two");
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    /**
+     * Empties the replica, creates the primary's tables in it and adds one movie of the given title with id 1
+     */
+    static void copySchema(DataSource primary, String replica, String title) throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("script nodata")) {
+            while (rows.next()) {
+                script.add(rows.getString(1));
+            }
+        }
+        try (Connection connection = DriverManager.getConnection(replica, "root", "example");
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+            statement.execute("insert into movies_entity (id, title, category, rating, version) values (1, '" + title + "', 'drama', 8, 0)");
+        }
+    }
+
+    @Test
+    void test_reads_go_to_the_replicas_in_turn() throws Exception {
+        assertTrue(dataSource.isWrapperFor(ReadWriteRoutingDataSource.class));
+        Set<String> titles = new HashSet<>();
+        titles.add(listedTitle(MockMvcRequestBuilders.get("/movies")));
+        titles.add(listedTitle(MockMvcRequestBuilders.get("/movies")));
+        assertEquals(Set.of("Replica one", "Replica two"), titles);
+    }
+
+    @Test
+    void test_writer_reads_from_the_primary_within_its_window() throws Exception {
+        Cookie pin = mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andExpect(cookie().httpOnly(ReadYourWritesFilter.COOKIE, true))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        assertEquals("On the primary", listedTitle(MockMvcRequestBuilders.get("/movies").cookie(pin)));
+        assertEquals("On the primary", listedTitle(MockMvcRequestBuilders.get("/movies").cookie(pin)));
+        assertTrue(listedTitle(MockMvcRequestBuilders.get("/movies")).startsWith("Replica"));
+
+        Cookie expired = new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 1));
+        assertTrue(listedTitle(MockMvcRequestBuilders.get("/movies").cookie(expired)).startsWith("Replica"));
+    }
+
+    @Test
+    void test_list_is_untagged_until_replicas_caught_up() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isCreated());
+
+        assertNull(mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void test_cached_lookups_read_the_primary() throws Exception {
+        //id 1 only exists on the replicas, a replica row must never make it into the cache
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/1"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REQUEST))
+                .andExpect(status().isCreated());
+        Long id = ReadRouting.onPrimary(() -> moviesRepository.findAll()).get(0).getId();
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("On the primary"));
+    }
+
+    private String listedTitle(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.movies[0].title");
+    }
+}
@@ -0,0 +1,34 @@
+package com.rhb.interview.demo;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the sql hibernate sends so tests can look at it, e.g. to explain the query plan
+ * enable with spring.jpa.properties.hibernate.session_factory.statement_inspector
+ */
+public class RecordingStatementInspector implements StatementInspector {
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (STATEMENTS) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    public static void clear() {
+        synchronized (STATEMENTS) {
+            STATEMENTS.clear();
+        }
+    }
+
+    public static List<String> statements() {
+        synchronized (STATEMENTS) {
+            return new ArrayList<>(STATEMENTS);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.rhb.interview.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rhb.interview.demo.config.ShardRouting;
+import com.rhb.interview.demo.dto.Movie;
+import com.rhb.interview.demo.repository.entity.MoviesEntity;
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import com.rhb.interview.demo.service.impl.MovieShards;
+import com.rhb.interview.demo.service.impl.MovieStatistics;
+import com.rhb.interview.demo.service.impl.MovieTitleIndex;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQL5InnoDBDialect;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.schema.TargetType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Three in memory h2 databases as the shards, each test looks into every one of them directly to tell where
+ * movies went. Import batches of 2 so an import covers every shard. spring.datasource stays on mysql as configured
+ * for the application, no connection is made to it and the shards still get the h2 driver
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:mysql://localhost:3306/rhb",
+        "movies.import.batch-size=2",
+        "movies.sharding.enabled=true",
+        "movies.sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "movies.sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "movies.sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"})
+@AutoConfigureMockMvc
+class ShardingTests {
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MovieShards movieShards;
+
+    @Autowired
+    private MovieStatistics movieStatistics;
+
+    @Autowired
+    private MovieTitleIndex movieTitleIndex;
+
+    @AfterEach
+    public void cleanUp() {
+        movieShards.forEachShard(shard -> moviesRepository.deleteAll());
+    }
+
+    @Test
+    void test_shard_is_kept_in_the_id() {
+        assertEquals(42, ShardRouting.idOn(0, 42));
+        for (int shard = 0; shard < ShardRouting.MAX_SHARDS; shard += 97) {
+            long id = ShardRouting.idOn(shard, 1_000_001);
+            assertEquals(shard, ShardRouting.shardOf(id));
+            assertEquals(1_000_001, id & ((1L << ShardRouting.SHARD_SHIFT) - 1));
+        }
+    }
+
+    @Test
+    void test_creates_are_spread_over_the_shards() throws Exception {
+        for (int i = 0; i < SHARDS * 3; i++) {
+            create("spread " + i, "drama", "3.0");
+        }
+
+        assertStoredOnTheirShards(3);
+    }
+
+    @Test
+    void test_single_movie_calls_go_to_its_shard() throws Exception {
+        for (int i = 0; i < SHARDS; i++) {
+            create("single " + i, "drama", "3.0");
+        }
+        long id = idsOn(2).get(0);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(id)));
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"updated\",\"category\":\"western\",\"rating\":\"4.5\"}"))
+                .andExpect(status().isOk());
+        assertEquals("updated", movieShards.onShard(2,
+                () -> jdbcTemplate.queryForObject("select title from movies_entity where id = ?", String.class, id)));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk());
+        assertTrue(idsOn(2).isEmpty());
+        assertEquals(1, idsOn(0).size());
+        assertEquals(1, idsOn(1).size());
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(status().isNotFound());
+
+        //a shard that is not configured holds nothing
+        long elsewhere = ShardRouting.idOn(SHARDS + 2, 1);
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + elsewhere))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + elsewhere))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void test_bulk_operations_go_to_their_shards() throws Exception {
+        StringBuilder creates = new StringBuilder("[");
+        for (int i = 0; i < SHARDS * 2; i++) {
+            creates.append(i == 0 ? "" : ",")
+                    .append("{\"op\":\"create\",\"movie\":{\"title\":\"bulk ").append(i)
+                    .append("\",\"category\":\"romance\",\"rating\":\"2.5\"}}");
+        }
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(creates.append("]").toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].status", everyItem(is(201))));
+        assertStoredOnTheirShards(2);
+
+        //one update and one delete per shard in a single request
+        StringBuilder changes = new StringBuilder("[");
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Long> ids = idsOn(shard);
+            changes.append(shard == 0 ? "" : ",")
+                    .append("{\"op\":\"update\",\"id\":").append(ids.get(0))
+                    .append(",\"movie\":{\"title\":\"changed\",\"category\":\"romance\",\"rating\":\"5\"}},")
+                    .append("{\"op\":\"delete\",\"id\":").append(ids.get(1)).append("}");
+        }
+        changes.append(",{\"op\":\"delete\",\"id\":").append(ShardRouting.idOn(SHARDS, 1)).append("}]");
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(changes.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].status", is(200)))
+                .andExpect(jsonPath("$.items[5].status", is(200)))
+                .andExpect(jsonPath("$.items[6].status", is(404)));
+        for (int shard = 0; shard < SHARDS; shard++) {
+            long id = idsOn(shard).get(0);
+            assertEquals(1, idsOn(shard).size());
+            mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title", is("changed")));
+        }
+    }
+
+    @Test
+    void test_import_batches_go_to_the_shards_in_turn() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < SHARDS * 4; i++) {
+            ndjson.append("{\"title\":\"imported ").append(i).append("\",\"category\":\"drama\",\"rating\":\"4.5\"}\n");
+        }
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies/_import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(SHARDS * 4)));
+        assertStoredOnTheirShards(4);
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + idsOn(shard).get(0)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void test_list_pages_merge_every_shard_in_order() throws Exception {
+        for (int i = 0; i < 31; i++) {
+            create("title " + (char) ('a' + i * 7 % 26) + " " + i, "category " + i % 2, Float.toString((i % 10 + 1) / 2f));
+        }
+        List<Movie> movies = new ArrayList<>();
+        movieShards.forEachShard(shard -> movies.addAll(jdbcTemplate.query("select id, title, category, rating from movies_entity",
+                (row, i) -> new Movie(row.getLong(1), row.getString(2), row.getString(3), row.getByte(4)))));
+        assertEquals(31, movies.size());
+
+        assertEquals(ordered(movies, Comparator.comparing(Movie::getId)), pageThrough("id", null));
+        assertEquals(ordered(movies, Comparator.comparing(Movie::getTitle).thenComparing(Movie::getId)), pageThrough("title", null));
+        assertEquals(ordered(movies, Comparator.comparing(Movie::getRatingHalfStars).thenComparing(Movie::getId)), pageThrough("rating", null));
+        List<Movie> odd = movies.stream().filter(movie -> movie.getCategory().equals("category 1")).collect(Collectors.toList());
+        assertEquals(ordered(odd, Comparator.comparing(Movie::getRatingHalfStars).thenComparing(Movie::getId)), pageThrough("rating", "category 1"));
+    }
+
+    @Test
+    void test_whole_catalog_reads_cover_every_shard() throws Exception {
+        for (int i = 0; i < SHARDS * 2; i++) {
+            create("Catalog movie " + i, "comedy", "2.0");
+        }
+        movieStatistics.rebuild();
+        movieTitleIndex.rebuild();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies", is(SHARDS * 2)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/search").param("q", "catalog"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies", hasSize(SHARDS * 2)));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/movies/_export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(SHARDS * 2, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        long previousId = 0;
+        for (String line : lines) {
+            long id = mapper.readTree(line).get("id").asLong();
+            assertTrue(id > previousId);
+            previousId = id;
+        }
+        assertEquals(SHARDS - 1, ShardRouting.shardOf(previousId));
+    }
+
+    //pages are merged in java's order of the titles, the schema hibernate creates on mysql has to sort them the same
+    @Test
+    void test_title_collation_in_the_created_schema(@TempDir Path dir) throws IOException {
+        String mysql = schemaScript(MySQL5InnoDBDialect.class, dir);
+        int alter = mysql.indexOf("alter table movies_entity modify title varchar(255) binary");
+        assertTrue(alter > mysql.indexOf("create table movies_entity"), mysql);
+        String h2 = schemaScript(H2Dialect.class, dir);
+        assertTrue(h2.contains("create table movies_entity"), h2);
+        assertFalse(h2.contains("modify title"), h2);
+    }
+
+    private void create(String title, String category, String rating) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"category\":\"" + category + "\",\"rating\":\"" + rating + "\"}"))
+                .andExpect(status().isCreated());
+    }
+
+    private void assertStoredOnTheirShards(int perShard) {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Long> ids = idsOn(shard);
+            assertEquals(perShard, ids.size());
+            for (Long id : ids) {
+                assertEquals(shard, ShardRouting.shardOf(id));
+            }
+        }
+    }
+
+    //the create script hibernate writes for the dialect, no database involved
+    private static String schemaScript(Class<? extends Dialect> dialect, Path dir) throws IOException {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, dialect.getName())
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName())
+                .build();
+        try {
+            Metadata metadata = new MetadataSources(registry)
+                    .addAnnotatedClass(MoviesEntity.class)
+                    .addResource("db/title-collation.hbm.xml")
+                    .buildMetadata();
+            Path script = dir.resolve(dialect.getSimpleName() + ".sql");
+            new SchemaExport().setOutputFile(script.toString()).setFormat(false)
+                    .createOnly(EnumSet.of(TargetType.SCRIPT), metadata);
+            return Files.readString(script);
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    private List<Long> idsOn(int shard) {
+        return movieShards.onShard(shard, () -> jdbcTemplate.queryForList("select id from movies_entity order by id", Long.class));
+    }
+
+    private List<Long> pageThrough(String sort, String category) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String body = mockMvc.perform(page(sort, category, cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = mapper.readTree(body);
+            page.get("movies").forEach(movie -> ids.add(movie.get("id").asLong()));
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static MockHttpServletRequestBuilder page(String sort, String category, String cursor) {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/movies").param("limit", "7").param("sort", sort);
+        if (category != null) {
+            request.param("category", category);
+        }
+        return cursor == null ? request : request.param("after", cursor);
+    }
+
+    private static List<Long> ordered(List<Movie> movies, Comparator<Movie> order) {
+        return movies.stream().sorted(order).map(Movie::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,98 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.repository.repository.MoviesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//every statement counts as slow here so the log can be checked
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sqlaccounting",
+        "movies.sql-accounting.slow-statement-threshold=0ms"})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class SqlAccountingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void cleanUp() {
+        moviesRepository.deleteAll();
+    }
+
+    @Test
+    void test_round_trips_per_endpoint() throws Exception {
+        //next id from the sequence, then the insert
+        mockMvc.perform(MockMvcRequestBuilders.post("/movies")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"counted\",\"category\":\"drama\",\"rating\":\"3.0\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(SqlStatements.exactly(2));
+        Long id = moviesRepository.findAll().get(0).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(SqlStatements.atMost(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(SqlStatements.exactly(1));
+        //served by the movie cache
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/" + id))
+                .andExpect(SqlStatements.exactly(0));
+        //no select before the update, the version it wrote is read back after it for the change event
+        mockMvc.perform(MockMvcRequestBuilders.put("/movies/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"recounted\",\"category\":\"drama\",\"rating\":\"3.5\"}"))
+                .andExpect(status().isOk())
+                .andExpect(SqlStatements.exactly(2));
+        mockMvc.perform(MockMvcRequestBuilders.delete("/movies/" + id))
+                .andExpect(status().isOk())
+                .andExpect(SqlStatements.exactly(1));
+    }
+
+    @Test
+    void test_database_time_header_and_metrics() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/movies"))
+                .andExpect(header().exists("X-Sql-Time-Micros"))
+                .andReturn();
+        assertTrue(Long.parseLong(result.getResponse().getHeader("X-Sql-Time-Micros")) > 0);
+
+        assertNotNull(meterRegistry.find("movies.sql.statements").tags("method", "GET", "uri", "/movies").summary());
+        assertTrue(meterRegistry.get("movies.sql.time").tags("method", "GET", "uri", "/movies").timer().count() >= 1);
+    }
+
+    @Test
+    void test_slow_statements_are_logged(CapturedOutput output) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/movies/424242"))
+                .andExpect(status().isNotFound());
+        assertTrue(output.getOut().contains("slow_statement duration_ms="), output.getOut());
+        assertTrue(output.getOut().contains("from movies_entity"));
+    }
+
+    @Test
+    void test_statements_outside_requests_are_not_counted() {
+        moviesRepository.count();
+        assertEquals(null, com.rhb.interview.demo.config.SqlAccounting.current());
+    }
+}
@@ -0,0 +1,41 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.controller.SqlAccountingHeadersAdvice;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers on the statements a request ran, read from the X-Sql-Statements header
+ * (movies.sql-accounting.headers is on in the test properties)
+ * <pre>
+ * mockMvc.perform(get("/movies/" + id)).andExpect(SqlStatements.atMost(1));
+ * </pre>
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    public static ResultMatcher atMost(int statements) {
+        return result -> {
+            int ran = statements(result);
+            assertTrue(ran <= statements, "expected at most " + statements + " statements but the request ran " + ran);
+        };
+    }
+
+    public static ResultMatcher exactly(int statements) {
+        return result -> {
+            int ran = statements(result);
+            assertTrue(ran == statements, "expected " + statements + " statements but the request ran " + ran);
+        };
+    }
+
+    public static int statements(MvcResult result) {
+        String header = result.getResponse().getHeader(SqlAccountingHeadersAdvice.STATEMENTS);
+        assertNotNull(header, "no " + SqlAccountingHeadersAdvice.STATEMENTS + " header, was the request counted?");
+        return Integer.parseInt(header);
+    }
+}
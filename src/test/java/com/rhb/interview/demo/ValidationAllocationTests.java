@@ -0,0 +1,128 @@
+package com.rhb.interview.demo;
+
+import com.rhb.interview.demo.dto.MovieRequest;
+import com.rhb.interview.demo.dto.ValidationResult;
+import com.rhb.interview.demo.service.MoviesService;
+import com.rhb.interview.demo.service.impl.MovieValidation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated per rejected request, validation as it is against the exception based version it replaced
+ * numbers are printed so they can be compared between runs, the asserts only guard against regressions
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:validation")
+class ValidationAllocationTests {
+    private static final int WARM_UP = 20_000;
+    private static final int MEASURED = 20_000;
+
+    //keeps the results reachable so the calls are not optimised away
+    private static volatile Object sink;
+
+    @Autowired
+    private MoviesService moviesService;
+
+    @Test
+    void test_invalid_rating_allocates_nothing() {
+        MovieRequest request = request("0.55");
+        BindingResult bindingResult = new BeanPropertyBindingResult(request, "movieRequest");
+
+        long before = allocatedPerCall(() -> legacyValidate(bindingResult, request.getRating()));
+        long after = allocatedPerCall(() -> MovieValidation.validate(bindingResult, request.getRating()));
+        long service = allocatedPerCall(() -> moviesService.createMovie(request, bindingResult));
+        System.out.printf("invalid rating, bytes per call: exception based %d, validation result %d, whole createMovie %d%n",
+                before, after, service);
+
+        ValidationResult result = MovieValidation.validate(bindingResult, request.getRating());
+        assertFalse(result.isValid());
+        assertEquals(legacyValidate(bindingResult, request.getRating()), result.getErrors());
+        assertTrue(after < 32, "validation allocated " + after + " bytes per call");
+        assertTrue(before > after);
+    }
+
+    @Test
+    void test_binding_errors_allocate_less() {
+        MovieRequest request = request("1.0");
+        BindingResult bindingResult = new BeanPropertyBindingResult(request, "movieRequest");
+        bindingResult.rejectValue("title", "NotBlank", "Title cannot be blank");
+        bindingResult.rejectValue("category", "NotBlank", "Category cannot be blank");
+
+        long before = allocatedPerCall(() -> legacyValidate(bindingResult, request.getRating()));
+        long after = allocatedPerCall(() -> MovieValidation.validate(bindingResult, request.getRating()));
+        System.out.printf("binding errors, bytes per call: maps per error %d, validation result %d%n", before, after);
+
+        assertEquals(legacyValidate(bindingResult, request.getRating()), MovieValidation.validate(bindingResult, request.getRating()).getErrors());
+        assertTrue(before > after);
+    }
+
+    private static long allocatedPerCall(Supplier<?> call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARM_UP; i++) {
+            sink = call.get();
+        }
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED; i++) {
+            sink = call.get();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - start) / MEASURED;
+    }
+
+    private static MovieRequest request(String rating) {
+        MovieRequest request = new MovieRequest();
+        request.setTitle("title");
+        request.setCategory("category");
+        request.setRating(rating);
+        return request;
+    }
+
+    //what the service did before ValidationResult, kept as the baseline
+    private List<Map<String, String>> legacyValidate(BindingResult bindingResult, String ratingInput) {
+        if (bindingResult.hasErrors()) {
+            List<Map<String, String>> errors = new ArrayList<>();
+            bindingResult.getFieldErrors().iterator().forEachRemaining(fieldError -> {
+                Map<String, String> error = new HashMap<>();
+                error.put(fieldError.getField(), fieldError.getDefaultMessage());
+                errors.add(error);
+            });
+            return errors;
+        }
+        try {
+            Float[] rating = {0.5f, 1.0f, 1.5f, 2.0f, 2.5f, 3.0f, 3.5f, 4.0f, 4.5f, 5f};
+            if (Arrays.stream(rating).noneMatch(aFloat -> aFloat.equals(Float.valueOf(ratingInput)))) {
+                List<Map<String, String>> errors = new ArrayList<>() {{
+                    add(new HashMap<>() {{
+                        put("rating", "Allowed rating 0.5,1.0,1.5,2.0,2.5,3.0,3.5,4.0,4.5,5");
+                    }});
+                }};
+                throw new LegacyInvalidRating(errors);
+            }
+            return null;
+        } catch (LegacyInvalidRating e) {
+            return e.errors;
+        }
+    }
+
+    private static class LegacyInvalidRating extends RuntimeException {
+        private final List<Map<String, String>> errors;
+
+        private LegacyInvalidRating(List<Map<String, String>> errors) {
+            this.errors = errors;
+        }
+    }
+}